@@ -0,0 +1,6 @@
+@echo off
+rem Arranque rapido: runtime recortado (jlink) + archivo AppCDS generado por mvn -Pfast-startup package
+cd /d "%~dp0"
+set CDS=
+if exist glauncher.jsa set CDS=-XX:SharedArchiveFile=glauncher.jsa -Xshare:auto
+start "" runtime\bin\javaw.exe %CDS% -jar GLauncher.jar %*
@@ -0,0 +1,8 @@
+#!/bin/sh
+# Arranque rapido: runtime recortado (jlink) + archivo AppCDS generado por mvn -Pfast-startup package
+cd "$(dirname "$0")" || exit 1
+CDS=""
+if [ -f glauncher.jsa ]; then
+    CDS="-XX:SharedArchiveFile=glauncher.jsa -Xshare:auto"
+fi
+exec runtime/bin/java $CDS -jar GLauncher.jar "$@"
@@ -0,0 +1,170 @@
+package com.milauncher;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Datos sintéticos para los benchmarks: JSON de versión con la forma de 1.20.1/Forge 47 y paquetes ZIP
+final class BenchmarkData {
+
+    private static final String[] OS_NAMES = {"windows", "linux", "osx"};
+
+    private BenchmarkData() {
+    }
+
+    // ~80 librerías como el JSON vanilla: comunes + natives de LWJGL con reglas por sistema operativo
+    static JsonObject vanillaJson() {
+        JsonObject json = new JsonObject();
+        JsonArray libraries = new JsonArray();
+        for (int i = 0; i < 44; i++) {
+            libraries.add(library("com.example.lib" + i, "artifact" + i, "1." + i, null));
+        }
+        String[] lwjgl = {"lwjgl", "lwjgl-glfw", "lwjgl-jemalloc", "lwjgl-openal", "lwjgl-opengl", "lwjgl-stb", "lwjgl-tinyfd"};
+        for (String module : lwjgl) {
+            libraries.add(library("org.lwjgl", module, "3.3.1", null));
+            for (String os : OS_NAMES) {
+                libraries.add(library("org.lwjgl", module, "3.3.1:natives-" + os, os));
+            }
+        }
+        json.add("libraries", libraries);
+
+        JsonObject arguments = new JsonObject();
+        JsonArray game = new JsonArray();
+        String[][] pairs = {
+                {"--username", "${auth_player_name}"}, {"--version", "${version_name}"},
+                {"--gameDir", "${game_directory}"}, {"--assetsDir", "${assets_root}"},
+                {"--assetIndex", "${assets_index_name}"}, {"--uuid", "${auth_uuid}"},
+                {"--accessToken", "${auth_access_token}"}, {"--clientId", "${clientid}"},
+                {"--xuid", "${auth_xuid}"}, {"--userType", "${user_type}"}, {"--versionType", "${version_type}"}
+        };
+        for (String[] pair : pairs) {
+            game.add(pair[0]);
+            game.add(pair[1]);
+        }
+        game.add(featureArgument("is_demo_user", "--demo"));
+        game.add(featureArgument("has_custom_resolution", "--width"));
+        arguments.add("game", game);
+        json.add("arguments", arguments);
+
+        JsonObject assetIndex = new JsonObject();
+        assetIndex.addProperty("id", "5");
+        json.add("assetIndex", assetIndex);
+        json.addProperty("mainClass", "net.minecraft.client.main.Main");
+        return json;
+    }
+
+    // ~50 librerías como el JSON de Forge, algunas sin bloque 'downloads'
+    static JsonObject forgeJson() {
+        JsonObject json = new JsonObject();
+        JsonArray libraries = new JsonArray();
+        for (int i = 0; i < 50; i++) {
+            JsonObject lib = library("net.minecraftforge.dep" + i, "dep" + i, "2." + i, null);
+            if (i % 10 == 0) lib.remove("downloads");
+            libraries.add(lib);
+        }
+        json.add("libraries", libraries);
+
+        JsonObject arguments = new JsonObject();
+        JsonArray jvm = new JsonArray();
+        jvm.add("-Djava.net.preferIPv6Addresses=system");
+        jvm.add("-DignoreList=bootstraplauncher,securejarhandler,asm-commons,asm-util,asm-analysis,asm-tree,asm,JarJarFileSystems,client-extra,fmlcore,javafmllanguage,lowcodelanguage,mclanguage,forge-,${version_name}.jar");
+        jvm.add("-DlibraryDirectory=${library_directory}");
+        jvm.add("-p");
+        jvm.add("${library_directory}/cpw/mods/bootstraplauncher/1.1.2/bootstraplauncher-1.1.2.jar${classpath_separator}${library_directory}/cpw/mods/securejarhandler/2.1.10/securejarhandler-2.1.10.jar");
+        jvm.add("--add-modules");
+        jvm.add("ALL-MODULE-PATH");
+        arguments.add("jvm", jvm);
+
+        JsonArray game = new JsonArray();
+        game.add("--launchTarget");
+        game.add("forgeclient");
+        game.add("--fml.forgeVersion");
+        game.add("47.4.10");
+        arguments.add("game", game);
+        json.add("arguments", arguments);
+        json.addProperty("mainClass", "cpw.mods.bootstraplauncher.BootstrapLauncher");
+        return json;
+    }
+
+    private static JsonObject library(String group, String artifact, String version, String os) {
+        JsonObject lib = new JsonObject();
+        lib.addProperty("name", group + ":" + artifact + ":" + version);
+
+        String path = group.replace('.', '/') + "/" + artifact + "/" + version.replace(':', '-') + "/"
+                + artifact + "-" + version.replace(':', '-') + ".jar";
+        JsonObject artifactJson = new JsonObject();
+        artifactJson.addProperty("path", path);
+        artifactJson.addProperty("sha1", "0123456789abcdef0123456789abcdef01234567");
+        artifactJson.addProperty("size", 123456);
+        artifactJson.addProperty("url", "https://libraries.minecraft.net/" + path);
+        JsonObject downloads = new JsonObject();
+        downloads.add("artifact", artifactJson);
+        lib.add("downloads", downloads);
+
+        if (os != null) {
+            JsonObject osJson = new JsonObject();
+            osJson.addProperty("name", os);
+            JsonObject rule = new JsonObject();
+            rule.addProperty("action", "allow");
+            rule.add("os", osJson);
+            JsonArray rules = new JsonArray();
+            rules.add(rule);
+            lib.add("rules", rules);
+        }
+        return lib;
+    }
+
+    private static JsonObject featureArgument(String feature, String value) {
+        JsonObject features = new JsonObject();
+        features.addProperty(feature, true);
+        JsonObject rule = new JsonObject();
+        rule.addProperty("action", "allow");
+        rule.add("features", features);
+        JsonArray rules = new JsonArray();
+        rules.add(rule);
+        JsonObject arg = new JsonObject();
+        arg.add("rules", rules);
+        arg.add("value", new JsonPrimitive(value));
+        return arg;
+    }
+
+    /**
+     * Genera un paquete con 'files' archivos de 'fileSize' bytes cada uno. La mitad del contenido es
+     * texto repetitivo (comprime bien, como configs) y la otra mitad aleatorio (como jars/PNG/OGG).
+     */
+    static void writePack(Path zip, int files, int fileSize, boolean stored) throws IOException {
+        Random random = new Random(42);
+        byte[] text = "option.key=value;mod.enabled=true;\n".repeat(fileSize / 32 + 1).getBytes(StandardCharsets.UTF_8);
+        try (OutputStream os = Files.newOutputStream(zip);
+             ZipOutputStream out = new ZipOutputStream(os)) {
+            for (int i = 0; i < files; i++) {
+                byte[] data = new byte[fileSize];
+                random.nextBytes(data);
+                System.arraycopy(text, 0, data, 0, fileSize / 2);
+
+                ZipEntry entry = new ZipEntry((i % 2 == 0 ? "mods/" : "config/") + "file" + i + ".bin");
+                if (stored) {
+                    CRC32 crc = new CRC32();
+                    crc.update(data);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCompressedSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+                out.putNextEntry(entry);
+                out.write(data);
+                out.closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.milauncher;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Resolución de classpath, reglas y argumentos a partir de JSON de versión ya parseados
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LaunchArgsBenchmark {
+
+    private final Path root = Paths.get("bench-root", ".GermFlogLauncher");
+    private JsonObject vanillaJson;
+    private VersionJson vanilla;
+    private VersionJson forge;
+    private JsonArray gameArgs;
+    private LaunchContext ctx;
+    private ArgumentTemplate compiledGameArgs;
+
+    @Setup
+    public void loadJson() {
+        vanillaJson = BenchmarkData.vanillaJson();
+        vanilla = VersionJson.compile(vanillaJson);
+        forge = VersionJson.compile(BenchmarkData.forgeJson());
+        gameArgs = vanillaJson.getAsJsonObject("arguments").getAsJsonArray("game");
+        ctx = LaunchContext.forGame(root, root, "1.20.1-forge-47.4.10", "Player", "5");
+        compiledGameArgs = ArgumentTemplate.compile(gameArgs);
+    }
+
+    @Benchmark
+    public String buildClasspath() {
+        return ForgeLauncher.buildClasspath(root, "1.20.1", forge, vanilla, new LinkedHashMap<>());
+    }
+
+    @Benchmark
+    public void checkRules(Blackhole bh) {
+        for (VersionJson.Library lib : vanilla.libraries) {
+            bh.consume(ForgeLauncher.checkRules(lib.rules()));
+        }
+    }
+
+    // Compilar el JSON completo (reglas y plantillas): lo que se paga una vez por archivo
+    @Benchmark
+    public VersionJson compileVersionJson() {
+        return VersionJson.compile(vanillaJson);
+    }
+
+    @Benchmark
+    public List<String> substituteGameArgs() {
+        List<String> out = new ArrayList<>();
+        ArgumentTemplate.compile(gameArgs).resolve(ctx, out);
+        return out;
+    }
+
+    // Solo la resolución, con la plantilla ya compilada (lo que se reutiliza entre lanzamientos)
+    @Benchmark
+    public List<String> resolveCompiledGameArgs() {
+        List<String> out = new ArrayList<>();
+        compiledGameArgs.resolve(ctx, out);
+        return out;
+    }
+}
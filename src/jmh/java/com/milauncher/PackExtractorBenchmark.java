@@ -0,0 +1,68 @@
+package com.milauncher;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Extracción completa de un paquete (sin manifiesto previo ni store), según forma y método de compresión
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PackExtractorBenchmark {
+
+    @Param({"MANY_SMALL", "FEW_LARGE"})
+    public String shape;
+
+    @Param({"STORED", "DEFLATED"})
+    public String method;
+
+    private Path workDir;
+    private Path zip;
+    private Path dest;
+
+    @Setup(Level.Trial)
+    public void createPack() throws IOException {
+        workDir = Files.createTempDirectory("glauncher-bench");
+        zip = workDir.resolve("minecraft_package.zip");
+        boolean stored = method.equals("STORED");
+        if (shape.equals("MANY_SMALL")) {
+            BenchmarkData.writePack(zip, 4000, 4 * 1024, stored);
+        } else {
+            BenchmarkData.writePack(zip, 8, 16 * 1024 * 1024, stored);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanDestination() throws IOException {
+        dest = workDir.resolve("out");
+        deleteRecursively(dest);
+        Files.createDirectories(dest);
+    }
+
+    @Benchmark
+    public PackManifest extract() throws IOException {
+        return PackExtractor.extract(zip, dest, null, "bench", null, new ProgressReporter());
+    }
+
+    @TearDown(Level.Trial)
+    public void deletePack() throws IOException {
+        deleteRecursively(workDir);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) return;
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path p : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
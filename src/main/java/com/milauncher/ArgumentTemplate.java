@@ -0,0 +1,110 @@
+package com.milauncher;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lista de argumentos de un JSON de versión ("arguments.game" o "arguments.jvm") ya compilada:
+ * cada texto se separa una sola vez en literales y placeholders ${...}, y los objetos
+ * {"rules": [...], "value": ...} quedan con sus reglas compiladas. Es inmutable, así que se puede
+ * guardar y reutilizar; resolverla es una sola pasada por argumento sobre un LaunchContext.
+ */
+public final class ArgumentTemplate {
+
+    // Un argumento: literals.length == keys.length + 1, alternando literal, placeholder, literal...
+    private static final class Part {
+        private final String[] literals;
+        private final String[] keys;
+        private final int literalLength;
+
+        private Part(String[] literals, String[] keys) {
+            this.literals = literals;
+            this.keys = keys;
+            int len = 0;
+            for (String literal : literals) len += literal.length();
+            this.literalLength = len;
+        }
+
+        static Part parse(String raw) {
+            List<String> literals = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            int from = 0;
+            int open;
+            while ((open = raw.indexOf("${", from)) >= 0) {
+                int close = raw.indexOf('}', open + 2);
+                if (close < 0) break;
+                literals.add(raw.substring(from, open));
+                keys.add(raw.substring(open + 2, close));
+                from = close + 1;
+            }
+            literals.add(raw.substring(from));
+            return new Part(literals.toArray(String[]::new), keys.toArray(String[]::new));
+        }
+
+        String resolve(LaunchContext ctx) {
+            if (keys.length == 0) return literals[0]; // sin placeholders: se reutiliza el mismo String
+
+            StringBuilder sb = new StringBuilder(literalLength + keys.length * 48);
+            for (int i = 0; i < keys.length; i++) {
+                sb.append(literals[i]);
+                String value = ctx.get(keys[i]);
+                if (value != null) {
+                    sb.append(value);
+                } else {
+                    // Placeholder desconocido: queda tal cual, como hacía el reemplazo anterior
+                    sb.append("${").append(keys[i]).append('}');
+                }
+            }
+            return sb.append(literals[keys.length]).toString();
+        }
+    }
+
+    private record Entry(Rules rules, Part[] values) {
+    }
+
+    private static final ArgumentTemplate EMPTY = new ArgumentTemplate(new Entry[0]);
+
+    private final Entry[] entries;
+
+    private ArgumentTemplate(Entry[] entries) {
+        this.entries = entries;
+    }
+
+    public static ArgumentTemplate compile(JsonArray json) {
+        if (json == null) return EMPTY;
+        List<Entry> entries = new ArrayList<>(json.size());
+        for (JsonElement e : json) {
+            if (e.isJsonPrimitive()) {
+                entries.add(new Entry(null, new Part[]{Part.parse(e.getAsString())}));
+                continue;
+            }
+            // {"rules": [...], "value": "x"} o {"rules": [...], "value": ["x", "y"]}
+            JsonObject obj = e.getAsJsonObject();
+            JsonElement value = obj.get("value");
+            Part[] parts;
+            if (value.isJsonArray()) {
+                JsonArray array = value.getAsJsonArray();
+                parts = new Part[array.size()];
+                for (int i = 0; i < parts.length; i++) parts[i] = Part.parse(array.get(i).getAsString());
+            } else {
+                parts = new Part[]{Part.parse(value.getAsString())};
+            }
+            entries.add(new Entry(Rules.compile(obj.getAsJsonArray("rules")), parts));
+        }
+        return new ArgumentTemplate(entries.toArray(Entry[]::new));
+    }
+
+    /** Agrega a 'out' los argumentos resueltos cuyas reglas se cumplen con este contexto. */
+    public void resolve(LaunchContext ctx, List<String> out) {
+        for (Entry entry : entries) {
+            if (entry.rules != null && !entry.rules.allows(ctx.features())) continue;
+            for (Part part : entry.values) {
+                out.add(part.resolve(ctx));
+            }
+        }
+    }
+}
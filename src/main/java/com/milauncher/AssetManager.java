@@ -0,0 +1,143 @@
+package com.milauncher;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assets del juego: assets/indexes/<id>.json y los objetos assets/objects/xx/hash que referencia.
+ * El índice se lee en streaming (JsonReader, sin armar el árbol completo), los objetos se revisan
+ * en paralelo por tamaño y los que faltan se bajan del servidor de recursos (o de un espejo).
+ */
+public class AssetManager {
+
+    private static final String OBJECTS_URL = "https://resources.download.minecraft.net";
+
+    // -Dglauncher.assetMirror=http://localhost:8080 para servir el índice y los objetos desde un espejo local
+    private static final String MIRROR = System.getProperty("glauncher.assetMirror");
+
+    private static final int MAX_PARALLEL_DOWNLOADS = 16;
+
+    private record AssetObject(String hash, long size) {
+        String relativePath() {
+            return hash.substring(0, 2) + "/" + hash;
+        }
+    }
+
+    public static Path indexPath(Path root, String indexId) {
+        return root.resolve("assets").resolve("indexes").resolve(indexId + ".json");
+    }
+
+    /** Verifica (y repara si puede) el índice y los objetos. Devuelve cuántos objetos siguen faltando. */
+    public static int ensureAssets(Path root, LaunchPlan plan) throws IOException, InterruptedException {
+        if (plan.assetIndex == null) return 0;
+        long start = System.nanoTime();
+
+        Path index = Paths.get(plan.assetIndex.path);
+        if (!isIndexValid(index, plan.assetIndex)) {
+            if (plan.assetIndex.url == null) {
+                System.out.println("AVISO: Falta el índice de assets " + index + " y no hay URL para bajarlo.");
+                return 0;
+            }
+            System.out.println("[Launcher] Descargando índice de assets " + plan.assetIndexId + "...");
+            if (!LibraryDownloader.fetch(LibraryDownloader.mirrored(plan.assetIndex.url, MIRROR),
+                    index, plan.assetIndex.sha1, plan.assetIndex.size)) {
+                System.out.println("AVISO: No se pudo descargar el índice de assets.");
+                return 0;
+            }
+        }
+
+        List<AssetObject> objects = readIndex(index);
+        Path objectsDir = root.resolve("assets").resolve("objects");
+
+        // Revisión en paralelo: solo se mira existencia y tamaño, sin leer contenido
+        List<AssetObject> missing = objects.parallelStream()
+                .filter(o -> !isPresent(objectsDir.resolve(o.relativePath()), o.size))
+                .toList();
+
+        System.out.printf("[Launcher] Assets revisados: %d objetos, %d faltantes (%d ms)%n",
+                objects.size(), missing.size(), (System.nanoTime() - start) / 1_000_000);
+        if (missing.isEmpty()) return 0;
+
+        return fetchMissing(objectsDir, missing);
+    }
+
+    private static boolean isIndexValid(Path index, LaunchPlan.Library expected) throws IOException {
+        if (!Files.exists(index)) return false;
+        if (expected.size >= 0 && Files.size(index) != expected.size) return false;
+        return expected.sha1 == null || Hashes.sha1(index).equalsIgnoreCase(expected.sha1);
+    }
+
+    // {"objects": {"minecraft/sounds/x.ogg": {"hash": "...", "size": 123}, ...}}
+    private static List<AssetObject> readIndex(Path index) throws IOException {
+        Map<String, AssetObject> byHash = new LinkedHashMap<>();
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(index))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("objects")) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    reader.nextName(); // nombre lógico del asset, no lo necesitamos
+                    String hash = null;
+                    long size = -1;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "hash" -> hash = reader.nextString();
+                            case "size" -> size = reader.nextLong();
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    // Varios nombres pueden apuntar al mismo objeto
+                    if (hash != null) byHash.putIfAbsent(hash, new AssetObject(hash, size));
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        }
+        return new ArrayList<>(byHash.values());
+    }
+
+    private static boolean isPresent(Path file, long size) {
+        try {
+            return Files.size(file) == size || size < 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int fetchMissing(Path objectsDir, List<AssetObject> missing) throws InterruptedException {
+        System.out.println("[Launcher] Descargando " + missing.size() + " assets...");
+        String mirror = MIRROR != null && !MIRROR.isBlank() ? MIRROR : OBJECTS_URL;
+        String base = mirror.endsWith("/") ? mirror.substring(0, mirror.length() - 1) : mirror;
+        Semaphore slots = new Semaphore(MAX_PARALLEL_DOWNLOADS);
+        AtomicInteger failed = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (AssetObject object : missing) {
+                executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        // El nombre del objeto es su sha1, así que se verifica al descargar
+                        if (!LibraryDownloader.fetch(base + "/" + object.relativePath(),
+                                objectsDir.resolve(object.relativePath()), object.hash, object.size)) {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        slots.release();
+                    }
+                    return null;
+                });
+            }
+        }
+        return failed.get();
+    }
+}
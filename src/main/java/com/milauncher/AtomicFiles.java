@@ -0,0 +1,38 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Escritura "todo o nada": se escribe en <archivo>.tmp y se mueve encima, así nunca queda un archivo a medias
+final class AtomicFiles {
+
+    /** Escribe el temporal que recibe; si falla, se borra y el archivo anterior queda intacto. */
+    interface Writer {
+        void write(Path tmp) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    static void write(Path file, Writer writer) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            writer.write(tmp);
+            replace(tmp, file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    static void writeString(Path file, String content) throws IOException {
+        write(file, tmp -> Files.writeString(tmp, content));
+    }
+
+    /** Mueve 'source' encima de 'target' en un solo paso (mismo volumen). */
+    static void replace(Path source, Path target) throws IOException {
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
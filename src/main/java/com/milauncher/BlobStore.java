@@ -0,0 +1,179 @@
+package com.milauncher;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Almacén de contenido direccionado por hash (store/objects/ab/abcdef...).
+ * Los archivos de libraries/, mods/ y assets/ se guardan una sola vez y se instalan como
+ * enlaces duros (o copias si el sistema de archivos no los soporta), así el contenido repetido
+ * entre versiones del paquete o entre vanilla y Forge no ocupa disco dos veces.
+ *
+ * Con un .zip el tamaño + CRC32 del directorio central solo señala un candidato: 32 bits no alcanzan
+ * para dar por igual el contenido, así que PackExtractor lee la entrada y compara su SHA-256 con el del
+ * blob antes de enlazarlo (se ahorra la escritura, no la lectura). Un .glpack trae el SHA-256 de cada
+ * archivo y se compara directo por ese hash.
+ *
+ * Lo que ya no figura en ningún manifiesto se borra con 'sweep' después de cada actualización; como lo
+ * instalado son enlaces duros, borrar el blob no toca los archivos de las instancias.
+ */
+public class BlobStore {
+
+    private static final String[] SHARED_PREFIXES = {"libraries/", "mods/", "assets/"};
+
+    private final Path root;
+    private final Path objects;
+    private final Path tmp;
+    private final Path indexFile;
+
+    // "tamaño-crc" -> sha256. Permite reconocer contenido ya guardado usando solo el directorio central del ZIP
+    private final Map<String, String> index = new ConcurrentHashMap<>();
+
+    private BlobStore(Path root) {
+        this.root = root;
+        this.objects = root.resolve("objects");
+        this.tmp = root.resolve("tmp");
+        this.indexFile = root.resolve("index.properties");
+    }
+
+    public static BlobStore open(Path root) throws IOException {
+        BlobStore store = new BlobStore(root);
+        Files.createDirectories(store.objects);
+        Files.createDirectories(store.tmp);
+
+        // Restos de una instalación interrumpida
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(store.tmp, "*.tmp")) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+
+        if (Files.exists(store.indexFile)) {
+            Properties props = new Properties();
+            try (InputStream is = Files.newInputStream(store.indexFile)) {
+                props.load(is);
+            }
+            props.forEach((k, v) -> store.index.put((String) k, (String) v));
+        }
+        return store;
+    }
+
+    public static boolean isShared(String entryName) {
+        for (String prefix : SHARED_PREFIXES) {
+            if (entryName.startsWith(prefix)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Hash del contenido ya guardado con ese tamaño y CRC, o null si no lo conocemos. Es solo un candidato:
+     * hay que confirmar el SHA-256 del contenido antes de usarlo.
+     */
+    public String find(long size, long crc) throws IOException {
+        String sha = index.get(size + "-" + crc);
+        if (sha == null) return null;
+
+        Path blob = blobPath(sha);
+        if (!Files.exists(blob) || Files.size(blob) != size) {
+            index.remove(size + "-" + crc);
+            return null;
+        }
+        return sha;
+    }
+
+    /** Archivo temporal dentro del store (mismo volumen) para extraer antes de conocer el hash. */
+    public Path newTempFile() {
+        return tmp.resolve(UUID.randomUUID() + ".tmp");
+    }
+
+    /** Si el contenido con ese hash ya está guardado (paquetes .glpack, que traen el hash en el índice). */
+    public boolean contains(String sha, long size) throws IOException {
+        Path blob = blobPath(sha);
+        return Files.exists(blob) && Files.size(blob) == size;
+    }
+
+    /** Mueve el temporal a su lugar definitivo según su hash y lo registra en el índice. */
+    public void add(Path tempFile, long size, long crc, String sha) throws IOException {
+        add(tempFile, sha);
+        index.put(size + "-" + crc, sha);
+    }
+
+    /** Igual, para contenido sin CRC (no se agrega al índice tamaño-crc). */
+    public void add(Path tempFile, String sha) throws IOException {
+        Path blob = blobPath(sha);
+        if (Files.exists(blob)) {
+            Files.deleteIfExists(tempFile);
+        } else {
+            Files.createDirectories(blob.getParent());
+            try {
+                Files.move(tempFile, blob, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Otro hilo guardó el mismo contenido al mismo tiempo
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    /** Instala el contenido en 'target' como enlace duro; si no se puede, como copia. */
+    public void materialize(String sha, Path target) throws IOException {
+        Path blob = blobPath(sha);
+        Files.createDirectories(target.getParent());
+        Path link = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".lnk");
+        try {
+            Files.createLink(link, blob);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(blob, link, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.move(link, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Borra los blobs que no están en 'referenced' (los SHA-256 de todos los manifiestos) y los saca del
+     * índice. Devuelve los bytes liberados.
+     */
+    public long sweep(Set<String> referenced) throws IOException {
+        long freed = 0;
+        int removed = 0;
+        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(objects)) {
+            for (Path prefix : prefixes) {
+                if (!Files.isDirectory(prefix)) continue;
+                try (DirectoryStream<Path> blobs = Files.newDirectoryStream(prefix)) {
+                    for (Path blob : blobs) {
+                        if (referenced.contains(blob.getFileName().toString())) continue;
+                        long size = Files.size(blob);
+                        if (Files.deleteIfExists(blob)) {
+                            freed += size;
+                            removed++;
+                        }
+                    }
+                }
+            }
+        }
+        if (removed > 0) {
+            index.values().removeIf(sha -> !referenced.contains(sha));
+            saveIndex();
+            System.out.println("[Launcher] Store: " + removed + " archivos sin uso borrados ("
+                    + freed / (1024 * 1024) + " MB).");
+        }
+        return freed;
+    }
+
+    public void saveIndex() throws IOException {
+        Properties props = new Properties();
+        props.putAll(index);
+        AtomicFiles.write(indexFile, tmp -> {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                props.store(os, "Indice del almacen de contenido (tamano-crc = sha256)");
+            }
+        });
+    }
+
+    private Path blobPath(String sha) {
+        return objects.resolve(sha.substring(0, 2)).resolve(sha);
+    }
+}
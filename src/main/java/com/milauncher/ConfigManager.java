@@ -2,18 +2,49 @@ package com.milauncher;
 
 import java.io.*;
 import java.nio.file.*;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 
+/**
+ * Configuración del launcher en memoria. Los cambios se guardan en segundo plano:
+ * varios cambios seguidos se juntan en una sola escritura, que va a un ".tmp" y se mueve
+ * de forma atómica para que un corte nunca deje el archivo a medias.
+ * Si alguien edita launcher.properties a mano mientras el launcher está abierto, se recarga solo.
+ */
 public class ConfigManager {
 
     private static final Path CONFIG_PATH = FileManager.getMinecraftDir().resolve("launcher.properties");
-    private static Properties props = new Properties();
+
+    public static final int DEFAULT_RAM_MB = 4096;
+
+    // Ventana para juntar cambios seguidos en una sola escritura
+    private static final long SAVE_DELAY_MS = 300;
+    // Espera tras un cambio externo antes de releer, por si el editor sigue escribiendo
+    private static final long SETTLE_MS = 150;
+
+    private static final Properties props = new Properties();
+    private static final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    private static final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "config-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private static ScheduledFuture<?> pendingSave;
+    private static boolean dirty;
+    private static final Object WRITE_LOCK = new Object();
+
+    // Último contenido que escribimos nosotros: si el watcher ve exactamente esto, no es una edición externa
+    private static volatile String lastWritten;
+    private static Thread watcher;
 
     static {
         load();
+        Runtime.getRuntime().addShutdownHook(new Thread(ConfigManager::flush, "config-flush"));
     }
 
-    public static void load() {
+    public static synchronized void load() {
         if (Files.exists(CONFIG_PATH)) {
             try (InputStream is = Files.newInputStream(CONFIG_PATH)) {
                 props.load(is);
@@ -21,18 +52,147 @@ public class ConfigManager {
                 e.printStackTrace();
             }
         }
+        startWatcher();
     }
 
-    public static void save() {
-        try {
-            if (!Files.exists(FileManager.getMinecraftDir())) {
-                Files.createDirectories(FileManager.getMinecraftDir());
+    /** Programa el guardado; si ya hay uno pendiente, este cambio viaja en esa misma escritura. */
+    public static synchronized void save() {
+        dirty = true;
+        if (pendingSave != null && !pendingSave.isDone()) return;
+        pendingSave = writer.schedule(ConfigManager::write, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Escribe ya lo que esté pendiente, esperando si hay una escritura en curso (al cerrar el launcher). */
+    public static void flush() {
+        synchronized (ConfigManager.class) {
+            if (pendingSave != null) pendingSave.cancel(false);
+        }
+        write();
+    }
+
+    private static void write() {
+        synchronized (WRITE_LOCK) {
+            String content;
+            synchronized (ConfigManager.class) {
+                if (!dirty) return;
+                dirty = false; // cambios posteriores a esta foto programan otra escritura
+                pendingSave = null;
+                StringWriter out = new StringWriter();
+                try {
+                    props.store(out, "Configuracion del Launcher");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e); // StringWriter no falla
+                }
+                content = out.toString();
+                lastWritten = content;
             }
-            try (OutputStream os = Files.newOutputStream(CONFIG_PATH)) {
-                props.store(os, "Configuracion del Launcher");
+            try {
+                Files.createDirectories(CONFIG_PATH.getParent());
+                AtomicFiles.writeString(CONFIG_PATH, content);
+            } catch (IOException e) {
+                System.err.println("Error guardando la configuración: " + e.getMessage());
             }
+        }
+    }
+
+    // Vigila la carpeta del launcher para recargar si el archivo cambia desde afuera
+    private static void startWatcher() {
+        if (watcher != null) return;
+        try {
+            Files.createDirectories(CONFIG_PATH.getParent());
+            WatchService service = FileSystems.getDefault().newWatchService();
+            CONFIG_PATH.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watcher = new Thread(() -> watch(service), "config-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
         } catch (IOException e) {
-            e.printStackTrace();
+            System.out.println("AVISO: No se pueden vigilar cambios externos en la configuración: " + e.getMessage());
+        }
+    }
+
+    private static void watch(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean touched = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (CONFIG_PATH.getFileName().equals(event.context())) touched = true;
+                }
+                key.reset();
+                if (!touched) continue;
+
+                // Un editor suele truncar y escribir en varios pasos: esperar a que se calme
+                WatchKey more;
+                while ((more = service.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reloadExternal();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Fin del watcher
+        }
+    }
+
+    private static void reloadExternal() {
+        String content;
+        try {
+            content = Files.readString(CONFIG_PATH);
+        } catch (IOException e) {
+            return; // Puede estar a medio mover; llega otro evento después
+        }
+        if (content.isBlank() || content.equals(lastWritten)) return;
+
+        Properties fresh = new Properties();
+        try {
+            fresh.load(new StringReader(content));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("AVISO: launcher.properties editado con errores, se ignora: " + e.getMessage());
+            return;
+        }
+
+        Set<String> changed = new HashSet<>();
+        synchronized (ConfigManager.class) {
+            // Si hay cambios nuestros sin guardar, esos ganan y se escriben encima
+            if (dirty) return;
+            for (String name : fresh.stringPropertyNames()) {
+                if (!fresh.getProperty(name).equals(props.getProperty(name))) changed.add(name);
+            }
+            for (String name : props.stringPropertyNames()) {
+                if (!fresh.containsKey(name)) changed.add(name);
+            }
+            props.clear();
+            props.putAll(fresh);
+            lastWritten = content;
+        }
+        if (!changed.isEmpty()) {
+            System.out.println("Configuración recargada por cambio externo: " + changed);
+            changed.forEach(ConfigManager::notifyChanged);
+        }
+    }
+
+    /** Se llama con el nombre de la clave cada vez que cambia un valor (desde la UI o desde el archivo). */
+    public static void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    private static void set(String key, String value) {
+        synchronized (ConfigManager.class) {
+            Object old = props.setProperty(key, value);
+            if (value.equals(old)) return;
+            save();
+        }
+        notifyChanged(key);
+    }
+
+    private static void notifyChanged(String key) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(key);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
         }
     }
 
@@ -41,17 +201,44 @@ public class ConfigManager {
     }
 
     public static void setUsername(String username) {
-        props.setProperty("username", username);
-        save();
+        set("username", username);
     }
 
-    public static String getRam() {
+    private static String getRam() {
         // Por defecto 4096MB (4GB)
-        return props.getProperty("ram", "4096");
+        return props.getProperty("ram", String.valueOf(DEFAULT_RAM_MB));
+    }
+
+    /** RAM en MB; si el valor guardado no es un número válido se usa el valor por defecto. */
+    public static int getRamMb() {
+        try {
+            int mb = Integer.parseInt(getRam().trim());
+            return mb > 0 ? mb : DEFAULT_RAM_MB;
+        } catch (NumberFormatException e) {
+            return DEFAULT_RAM_MB;
+        }
+    }
+
+    /** Solo se guardan números: el diálogo de RAM no deja aceptar otra cosa. */
+    public static void setRamMb(int mb) {
+        set("ram", String.valueOf(mb));
+    }
+
+    /** Perfil de flags de la JVM del juego (ver JvmTuning); por defecto "auto". */
+    public static JvmTuning.Profile getJvmProfile() {
+        return JvmTuning.Profile.fromId(props.getProperty("jvmProfile", JvmTuning.Profile.AUTO.id));
+    }
+
+    public static void setJvmProfile(JvmTuning.Profile profile) {
+        set("jvmProfile", profile.id);
+    }
+
+    /** Id de la instancia elegida (ver Instance); por defecto la que viene con el launcher. */
+    public static String getInstanceId() {
+        return props.getProperty("instance", Instance.DEFAULT_ID);
     }
 
-    public static void setRam(String ram) {
-        props.setProperty("ram", ram);
-        save();
+    public static void setInstanceId(String id) {
+        set("instance", id);
     }
-}
\ No newline at end of file
+}
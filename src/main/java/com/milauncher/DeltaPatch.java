@@ -0,0 +1,275 @@
+package com.milauncher;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Parche binario (.gldiff) para pasar de un archivo a otro sin descargar el nuevo completo. Se arma
+ * buscando en el archivo nuevo bloques que ya estén en el viejo (suma rodante como rsync, confirmada
+ * comparando los bytes) y extendiendo cada coincidencia todo lo posible; lo demás va literal.
+ * Las instrucciones van comprimidas con DEFLATE, así que las partes nuevas tampoco ocupan de más.
+ *
+ * Estructura (big-endian):
+ *   "GLDIFF", versión (short), tamaño de bloque (int)
+ *   tamaño (long) y SHA-256 (32 bytes) del archivo base
+ *   tamaño (long) y SHA-256 (32 bytes) del resultado
+ *   instrucciones (DEFLATE): COPY offset (long) largo (int) | DATA largo (int) bytes | END
+ */
+public final class DeltaPatch {
+
+    public static final String EXTENSION = ".gldiff";
+
+    private static final byte[] MAGIC = "GLDIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final short VERSION = 1;
+
+    private static final byte COPY = 0;
+    private static final byte DATA = 1;
+    private static final byte END = 2;
+
+    // Bloques chicos encuentran más coincidencias entre clases sueltas; más chicos agrandan el índice
+    private static final int BLOCK_SIZE = 2048;
+
+    private DeltaPatch() {
+    }
+
+    /** Datos del encabezado de un parche. */
+    public record Header(long baseSize, String baseSha256, long targetSize, String targetSha256) {
+    }
+
+    /**
+     * Arma el parche que convierte 'base' en 'target'. Los dos archivos se leen enteros a memoria:
+     * es para la herramienta de publicación, no para el launcher.
+     */
+    public static Header create(Path base, Path target, Path patch) throws IOException {
+        byte[] old = Files.readAllBytes(base);
+        byte[] now = Files.readAllBytes(target);
+        Header header = new Header(old.length, Hashes.hex(Hashes.sha256().digest(old)),
+                now.length, Hashes.hex(Hashes.sha256().digest(now)));
+
+        AtomicFiles.write(patch, tmp -> {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.write(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(BLOCK_SIZE);
+                out.writeLong(header.baseSize());
+                out.write(HexFormat.of().parseHex(header.baseSha256()));
+                out.writeLong(header.targetSize());
+                out.write(HexFormat.of().parseHex(header.targetSha256()));
+                out.flush();
+
+                Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+                try {
+                    DeflaterOutputStream compressed = new DeflaterOutputStream(out, deflater, 64 * 1024);
+                    DataOutputStream ops = new DataOutputStream(compressed);
+                    diff(old, now, new Emitter(ops));
+                    ops.writeByte(END);
+                    ops.flush();
+                    compressed.finish();
+                } finally {
+                    deflater.end();
+                }
+            }
+        });
+        return header;
+    }
+
+    public static Header readHeader(Path patch) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(patch)))) {
+            return readHeader(in);
+        }
+    }
+
+    /**
+     * Aplica el parche sobre 'base' y deja el resultado en 'out'. Verifica el hash del archivo base antes
+     * de empezar y el del resultado al terminar; si alguno no coincide lanza IOException y no deja nada en 'out'.
+     */
+    public static void apply(Path base, Path patch, Path out, ProgressReporter progress) throws IOException {
+        AtomicFiles.write(out, tmp -> applyTo(base, patch, tmp, progress));
+    }
+
+    private static void applyTo(Path base, Path patch, Path tmp, ProgressReporter progress) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(patch)));
+             RandomAccessFile source = new RandomAccessFile(base.toFile(), "r")) {
+            Header header = readHeader(in);
+            if (source.length() != header.baseSize() || !Hashes.sha256(base).equalsIgnoreCase(header.baseSha256())) {
+                throw new IOException("El parche no corresponde al archivo base " + base.getFileName());
+            }
+
+            progress.setTotal(header.targetSize());
+            MessageDigest digest = Hashes.sha256();
+            long written = 0;
+            byte[] buffer = new byte[64 * 1024];
+            DataInputStream ops = new DataInputStream(new BufferedInputStream(new InflaterInputStream(in), 64 * 1024));
+            try (OutputStream result = new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)), digest)) {
+                while (true) {
+                    byte op = ops.readByte();
+                    if (op == END) break;
+                    if (op == COPY) {
+                        long offset = ops.readLong();
+                        int length = ops.readInt();
+                        if (offset < 0 || length < 0 || offset + length > header.baseSize()) {
+                            throw new IOException("Parche inválido: copia fuera del archivo base");
+                        }
+                        source.seek(offset);
+                        for (int left = length; left > 0; ) {
+                            int chunk = Math.min(left, buffer.length);
+                            source.readFully(buffer, 0, chunk);
+                            result.write(buffer, 0, chunk);
+                            left -= chunk;
+                        }
+                        written += length;
+                        progress.add(length);
+                    } else if (op == DATA) {
+                        int length = ops.readInt();
+                        if (length < 0) throw new IOException("Parche inválido: bloque de datos negativo");
+                        for (int left = length; left > 0; ) {
+                            int chunk = Math.min(left, buffer.length);
+                            ops.readFully(buffer, 0, chunk);
+                            result.write(buffer, 0, chunk);
+                            left -= chunk;
+                        }
+                        written += length;
+                        progress.add(length);
+                    } else {
+                        throw new IOException("Parche inválido: instrucción " + op);
+                    }
+                    if (written > header.targetSize()) {
+                        throw new IOException("Parche inválido: el resultado supera el tamaño esperado");
+                    }
+                }
+            }
+            String actual = Hashes.hex(digest.digest());
+            if (written != header.targetSize() || !actual.equalsIgnoreCase(header.targetSha256())) {
+                throw new IOException("El resultado del parche no coincide con el hash esperado (" + actual + ")");
+            }
+        }
+    }
+
+    private static Header readHeader(DataInputStream in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) throw new IOException("No es un parche " + EXTENSION);
+        short version = in.readShort();
+        if (version != VERSION) throw new IOException("Versión de parche no soportada: " + version);
+        in.readInt(); // tamaño de bloque: solo sirve al armarlo
+        byte[] sha = new byte[32];
+        long baseSize = in.readLong();
+        in.readFully(sha);
+        String baseSha = Hashes.hex(sha);
+        long targetSize = in.readLong();
+        in.readFully(sha);
+        return new Header(baseSize, baseSha, targetSize, Hashes.hex(sha));
+    }
+
+    // Recorre 'now' con una suma rodante del tamaño de un bloque; cada vez que coincide con un bloque de 'old'
+    // se comparan los bytes y se extiende la coincidencia hacia atrás (sobre los literales pendientes) y adelante
+    private static void diff(byte[] old, byte[] now, Emitter emitter) throws IOException {
+        Map<Integer, Integer> index = new HashMap<>();
+        for (int offset = 0; offset + BLOCK_SIZE <= old.length; offset += BLOCK_SIZE) {
+            index.putIfAbsent(weakHash(old, offset), offset);
+        }
+
+        int literalStart = 0;
+        int pos = 0;
+        int a = 0;
+        int b = 0;
+        boolean rolling = false;
+        while (pos + BLOCK_SIZE <= now.length) {
+            if (!rolling) {
+                int hash = weakHash(now, pos);
+                a = hash & 0xFFFF;
+                b = hash >>> 16;
+                rolling = true;
+            }
+            Integer candidate = index.get((b << 16) | a);
+            if (candidate != null && Arrays.equals(old, candidate, candidate + BLOCK_SIZE, now, pos, pos + BLOCK_SIZE)) {
+                int baseStart = candidate;
+                int start = pos;
+                while (start > literalStart && baseStart > 0 && old[baseStart - 1] == now[start - 1]) {
+                    baseStart--;
+                    start--;
+                }
+                int end = pos + BLOCK_SIZE;
+                int baseEnd = candidate + BLOCK_SIZE;
+                while (end < now.length && baseEnd < old.length && old[baseEnd] == now[end]) {
+                    end++;
+                    baseEnd++;
+                }
+                emitter.data(now, literalStart, start - literalStart);
+                emitter.copy(baseStart, end - start);
+                pos = end;
+                literalStart = end;
+                rolling = false;
+                continue;
+            }
+            if (pos + BLOCK_SIZE < now.length) {
+                int out = now[pos] & 0xFF;
+                int in = now[pos + BLOCK_SIZE] & 0xFF;
+                a = (a - out + in) & 0xFFFF;
+                b = (b - BLOCK_SIZE * out + a) & 0xFFFF;
+            }
+            pos++;
+        }
+        emitter.data(now, literalStart, now.length - literalStart);
+        emitter.flush();
+    }
+
+    // Suma tipo Adler-32 (sin módulo primo) que se puede desplazar de a un byte
+    private static int weakHash(byte[] data, int offset) {
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            int x = data[offset + i] & 0xFF;
+            a += x;
+            b += (BLOCK_SIZE - i) * x;
+        }
+        return ((b & 0xFFFF) << 16) | (a & 0xFFFF);
+    }
+
+    // Escribe las instrucciones juntando copias contiguas del archivo base en una sola
+    private static final class Emitter {
+        private final DataOutputStream out;
+        private long copyOffset = -1;
+        private int copyLength;
+
+        Emitter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void copy(long offset, int length) throws IOException {
+            if (copyOffset >= 0 && copyOffset + copyLength == offset) {
+                copyLength += length;
+                return;
+            }
+            flush();
+            copyOffset = offset;
+            copyLength = length;
+        }
+
+        void data(byte[] data, int offset, int length) throws IOException {
+            if (length == 0) return;
+            flush();
+            out.writeByte(DATA);
+            out.writeInt(length);
+            out.write(data, offset, length);
+        }
+
+        void flush() throws IOException {
+            if (copyOffset < 0) return;
+            out.writeByte(COPY);
+            out.writeLong(copyOffset);
+            out.writeInt(copyLength);
+            copyOffset = -1;
+        }
+    }
+}
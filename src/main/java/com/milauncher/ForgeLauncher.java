@@ -2,113 +2,267 @@ package com.milauncher;
 
 import com.google.gson.*;
 import java.io.*;
+import java.lang.module.ModuleFinder;
 import java.nio.file.*;
 import java.util.*;
 
 public class ForgeLauncher {
 
-    public static void launchGame() {
-        try {
-            Path root = FileManager.getMinecraftDir();
-
-            // --- DETECCIÓN DE JAVA ---
-            String javaHome = System.getProperty("java.home");
-            Path javaBin = Paths.get(javaHome, "bin", "java.exe");
-
-            String javaCommand = "java"; // Por defecto usa el del sistema
-
-            if (Files.exists(javaBin)) {
-                System.out.println("Usando Java del sistema/runtime actual: " + javaBin);
-                javaCommand = javaBin.toAbsolutePath().toString();
-            }
-
-            String vanillaVersion = "1.20.1";
-            String forgeVersion = "1.20.1-forge-47.4.10";
+    /** Lo que queda listo antes de arrancar el proceso: Java elegido y plan con librerías, natives y assets revisados. */
+    public record Prepared(Instance instance, String javaCommand, LaunchPlan plan) {
+    }
 
-            System.out.println("[Launcher] Root Minecraft dir = " + root);
+    /**
+     * Prepara y arranca el juego de la instancia. Devuelve el proceso supervisado para esperar a que abra
+     * su ventana, o null si no se pudo lanzar (el motivo queda en la consola).
+     */
+    public static GameProcess launchGame(Instance instance) {
+        try {
+            Prepared prepared = prepare(instance);
+            return prepared != null ? launchGame(prepared) : null;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-            // 1. Cargar JSON vanilla
-            Path vanillaJsonPath = root.resolve("versions").resolve(vanillaVersion)
-                    .resolve(vanillaVersion + ".json");
-            if (!Files.exists(vanillaJsonPath)) {
-                System.out.println("ERROR CRITICO: No se encuentra el JSON Vanilla: " + vanillaJsonPath);
-                return;
-            }
-            JsonObject vanillaJson = JsonParser.parseString(Files.readString(vanillaJsonPath)).getAsJsonObject();
-            System.out.println("[Launcher] Carga de JSON vanilla OK");
-
-            // 2. Cargar JSON Forge
-            Path forgeJsonPath = root.resolve("versions").resolve(forgeVersion)
-                    .resolve(forgeVersion + ".json");
-            if (!Files.exists(forgeJsonPath)) {
-                System.out.println("ERROR CRITICO: No se encuentra el JSON NeoForge: " + forgeJsonPath);
-                return;
+    /**
+     * Todo lo previo a arrancar el proceso. Se puede llamar de antemano (ver LaunchPreparer) y después
+     * lanzar con {@link #launchGame(Prepared)}. Devuelve null si falta algo que impide lanzar.
+     */
+    public static Prepared prepare(Instance instance) throws IOException, InterruptedException {
+        Path root = FileManager.getMinecraftDir();
+
+        // --- DETECCIÓN DE JAVA ---
+        String javaCommand = findGameJava();
+
+        System.out.println("[Launcher] Root Minecraft dir = " + root);
+        System.out.println("[Launcher] Instancia: " + instance.id() + " (" + instance.gameDir(root) + ")");
+
+        LaunchPlan plan = loadLaunchPlan(root, instance, javaCommand);
+        if (plan == null) return null;
+
+        // Verificar que las librerías existan y coincidan con el sha1 del JSON antes de arrancar
+        Path verifyCache = root.resolve(LibraryVerifier.CACHE_FILE);
+        List<LibraryVerifier.Problem> problems = LibraryVerifier.verify(plan.libraries, verifyCache);
+        if (!problems.isEmpty()) {
+            // Las que el JSON publica con URL se descargan y se vuelve a verificar
+            List<LaunchPlan.Library> broken = problems.stream().map(LibraryVerifier.Problem::library).toList();
+            if (LibraryDownloader.download(broken) > 0) {
+                problems = LibraryVerifier.verify(broken, verifyCache);
             }
-            JsonObject forgeJson = JsonParser.parseString(Files.readString(forgeJsonPath)).getAsJsonObject();
-            System.out.println("[Launcher] Carga de JSON NeoForge OK");
-
-            // 3. MainClass
-            String mainClass = forgeJson.get("mainClass").getAsString();
+        }
+        if (!problems.isEmpty()) {
+            System.out.println("ERROR CRITICO: Hay " + problems.size() + " librerías faltantes o corruptas:");
+            problems.forEach(p -> System.out.println("  - " + p));
+            return null;
+        }
+        if (Thread.interrupted()) throw new InterruptedException();
 
-            // 4. Classpath
-            String classPath = buildClasspath(root, vanillaVersion, forgeJson, vanillaJson);
+        // Natives: solo se extraen si cambiaron los jars o falta algún archivo
+        try {
+            Natives.stage(plan.natives, Natives.directory(root, instance.forgeVersion));
+        } catch (IOException e) {
+            // Puede pasar si otro juego abierto tiene las DLL en uso; se sigue con lo que haya
+            System.out.println("AVISO: No se pudieron preparar las natives: " + e.getMessage());
+        }
 
-            // 5. JVM args + RAM Configurada
-            String ram = ConfigManager.getRam(); // <-- LECTURA DE CONFIG
-            List<String> jvmArgs = buildJvmArgs(forgeJson, classPath, root, forgeVersion);
+        // Assets: si faltan objetos el juego arranca igual (sin algunos sonidos/texturas), solo avisamos
+        int missingAssets = AssetManager.ensureAssets(root, plan);
+        if (missingAssets > 0) {
+            System.out.println("AVISO: Quedaron " + missingAssets + " assets sin poder reparar.");
+        }
+        return new Prepared(instance, javaCommand, plan);
+    }
 
-            // 6. Game args
-            List<String> gameArgs = buildGameArgs(vanillaJson, forgeJson, root, forgeVersion);
+    /** Arranca el proceso con lo ya preparado. Devuelve null si no se pudo iniciar. */
+    public static GameProcess launchGame(Prepared prepared) {
+        try {
+            Path root = FileManager.getMinecraftDir();
+            Path gameDir = prepared.instance().gameDir(root);
+            LaunchPlan plan = prepared.plan();
 
-            // 7. Ejecutar Java
+            // Ejecutar Java
             List<String> finalCommand = new ArrayList<>();
-            finalCommand.add(javaCommand); // <-- USAMOS EL JAVA DETECTADO
-            finalCommand.add("-Xmx" + ram + "M"); // <-- RAM CONFIGURADA
-            finalCommand.addAll(jvmArgs);
-            finalCommand.add(mainClass);
-            finalCommand.addAll(gameArgs);
+            finalCommand.add(prepared.javaCommand()); // <-- USAMOS EL JAVA DETECTADO
+            finalCommand.addAll(plan.jvmArgs);
+            finalCommand.addAll(GameCds.jvmArgs(root, prepared.instance(), plan, prepared.javaCommand()));
+            finalCommand.add(plan.mainClass);
+            finalCommand.addAll(plan.gameArgs);
 
             System.out.println("\n========== JAVA LAUNCH COMMAND ==========");
             System.out.println("Comando listo. Iniciando proceso...");
 
-            ProcessBuilder pb = new ProcessBuilder(finalCommand);
-            pb.directory(root.toFile());
-            pb.inheritIO();
-            pb.start();
+            GameProcess game = GameProcess.start(finalCommand, gameDir, gameDir.resolve("logs").resolve("launcher"));
+            game.whenStarted(() -> GameCds.markReady(root, prepared.instance(), plan, prepared.javaCommand()));
+            Metrics.writeSummary();
+            return game;
 
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Java para el juego. El launcher puede estar corriendo sobre el runtime recortado del build
+     * -Pfast-startup, que no tiene los módulos que necesita Minecraft, así que ese solo se usa
+     * si es un runtime completo. Orden: -Dglauncher.gameJavaHome, java.home, JAVA_HOME, "java" del PATH.
+     */
+    static String findGameJava() {
+        String exe = Rules.OS_NAME.equals("windows") ? "java.exe" : "java";
+
+        List<String> candidates = new ArrayList<>();
+        candidates.add(System.getProperty("glauncher.gameJavaHome"));
+        if (ModuleFinder.ofSystem().find("java.se").isPresent()) {
+            candidates.add(System.getProperty("java.home"));
+        }
+        candidates.add(System.getenv("JAVA_HOME"));
+
+        for (String home : candidates) {
+            if (home == null || home.isBlank()) continue;
+            Path javaBin = Paths.get(home, "bin", exe);
+            if (Files.exists(javaBin)) {
+                System.out.println("Usando Java: " + javaBin);
+                return javaBin.toAbsolutePath().toString();
+            }
         }
+        return "java"; // Por defecto usa el del sistema
     }
 
-    private static String buildClasspath(Path root, String vanillaVersion, JsonObject forgeJson, JsonObject vanillaJson) {
-        Set<String> libs = new LinkedHashSet<>();
+    // Usa el plan guardado de la instancia si los JSON y la config no cambiaron; si no, lo resuelve y lo guarda
+    private static LaunchPlan loadLaunchPlan(Path root, Instance instance, String javaCommand) throws IOException {
+        String vanillaVersion = instance.vanillaVersion;
+        String forgeVersion = instance.forgeVersion;
+        Path vanillaJsonPath = root.resolve("versions").resolve(vanillaVersion)
+                .resolve(vanillaVersion + ".json");
+        if (!Files.exists(vanillaJsonPath)) {
+            System.out.println("ERROR CRITICO: No se encuentra el JSON Vanilla: " + vanillaJsonPath);
+            return null;
+        }
+        Path forgeJsonPath = root.resolve("versions").resolve(forgeVersion)
+                .resolve(forgeVersion + ".json");
+        if (!Files.exists(forgeJsonPath)) {
+            System.out.println("ERROR CRITICO: No se encuentra el JSON NeoForge: " + forgeJsonPath);
+            return null;
+        }
 
+        // Flags de memoria y GC según el perfil elegido y el hardware; van en la clave del plan,
+        // así un cambio de perfil, de RAM configurada o del equipo vuelve a resolverlo
+        JvmTuning.Result tuning = JvmTuning.resolve(ConfigManager.getJvmProfile(), ConfigManager.getRamMb(),
+                JvmTuning.detect(javaCommand)); // <-- LECTURA DE CONFIG
+        tuning.warnings().forEach(w -> System.out.println("AVISO: " + w));
+        System.out.println("[Launcher] Perfil JVM: " + tuning.profile().id + " (" + tuning.heapMb() + " MB)");
+        String configKey = LaunchPlan.configKey(ConfigManager.getUsername(), String.join(" ", tuning.jvmArgs()));
+        List<Path> inputs = List.of(vanillaJsonPath, forgeJsonPath);
+        Path planFile = instance.gameDir(root).resolve(LaunchPlan.FILE_NAME);
+
+        LaunchPlan cached = LaunchPlan.loadIfValid(planFile, inputs, configKey);
+        if (cached != null) {
+            Metrics.count("launchPlan.cacheHit");
+            System.out.println("[Launcher] Plan de lanzamiento en caché OK");
+            return cached;
+        }
+        Metrics.count("launchPlan.cacheMiss");
+
+        // 1. Cargar JSON vanilla (reglas y plantillas compiladas una vez por archivo)
+        VersionJson vanilla = VersionJson.load(vanillaJsonPath);
+        JsonObject vanillaJson = vanilla.json;
+        System.out.println("[Launcher] Carga de JSON vanilla OK");
+
+        // 2. Cargar JSON Forge
+        VersionJson forge = VersionJson.load(forgeJsonPath);
+        JsonObject forgeJson = forge.json;
+        System.out.println("[Launcher] Carga de JSON NeoForge OK");
+
+        LaunchPlan plan = new LaunchPlan(inputs, configKey);
+
+        // 3. MainClass
+        plan.mainClass = forgeJson.get("mainClass").getAsString();
+
+        // 4. Classpath
+        Map<String, LaunchPlan.Library> libraries = new LinkedHashMap<>();
+        String classPath;
+        try (Metrics.Span span = Metrics.span(Metrics.CLASSPATH_BUILD, forgeVersion)) {
+            try {
+                classPath = buildClasspath(root, vanillaVersion, forge, vanilla, libraries);
+            } catch (RuntimeException e) {
+                span.failed();
+                throw e;
+            }
+        }
+        Metrics.count("classpath.libraries", libraries.size());
+        plan.libraries.addAll(libraries.values());
+
+        // Natives de este sistema: se verifican y descargan junto con el resto de las librerías
+        for (VersionJson version : List.of(forge, vanilla)) {
+            for (LaunchPlan.Library lib : Natives.select(version, root)) {
+                if (plan.natives.stream().anyMatch(n -> n.path.equals(lib.path))) continue;
+                plan.natives.add(lib);
+                if (!libraries.containsKey(lib.path)) plan.libraries.add(lib);
+            }
+        }
+
+        // 5. Índice de assets (nombre del .json dentro de /assets/indexes)
+        plan.assetIndexId = "5";
+        if (vanillaJson.has("assetIndex")) {
+            JsonObject index = vanillaJson.getAsJsonObject("assetIndex");
+            plan.assetIndexId = index.get("id").getAsString();
+            plan.assetIndex = new LaunchPlan.Library(
+                    AssetManager.indexPath(root, plan.assetIndexId).toString(),
+                    index.has("sha1") ? index.get("sha1").getAsString() : null,
+                    index.has("size") ? index.get("size").getAsLong() : -1,
+                    index.has("url") ? index.get("url").getAsString() : null);
+        }
+
+        // 6. Contexto de placeholders: el usuario se lee una sola vez
+        String username = ConfigManager.getUsername();
+        if (username == null || username.trim().isEmpty()) {
+            username = "Player";
+        }
+        LaunchContext ctx = LaunchContext.forGame(root, instance.gameDir(root), forgeVersion, username, plan.assetIndexId)
+                .with("classpath", classPath);
+
+        // 7. JVM args + memoria y GC del perfil
+        plan.jvmArgs.addAll(tuning.jvmArgs()); // <-- RAM CONFIGURADA
+        plan.jvmArgs.addAll(buildJvmArgs(forge, ctx));
+
+        // 8. Game args
+        plan.gameArgs.addAll(buildGameArgs(vanilla, forge, ctx));
+
+        plan.save(planFile);
+        System.out.println("[Launcher] Plan de lanzamiento resuelto y guardado");
+        return plan;
+    }
+
+    static String buildClasspath(Path root, String vanillaVersion, VersionJson forge, VersionJson vanilla,
+                                 Map<String, LaunchPlan.Library> libs) {
         // Añade librerías de FORGE
-        addLibrariesFromJson(libs, forgeJson, root);
+        addLibrariesFromJson(libs, forge, root);
 
         // Añade librerías VANILLA (Minecraft base)
-        // Al ser un Set, si una librería de Vanilla ya fue añadida por Forge, se ignora y no da error.
-        addLibrariesFromJson(libs, vanillaJson, root);
+        // Se indexa por ruta: si una librería de Vanilla ya fue añadida por Forge, se ignora y no da error.
+        addLibrariesFromJson(libs, vanilla, root);
 
-        return String.join(File.pathSeparator, libs);
+        return String.join(File.pathSeparator, libs.keySet());
     }
 
-    // Método auxiliar modificado para aceptar Collection<String> (funciona con Sets y Lists)
-    private static void addLibrariesFromJson(Collection<String> libs, JsonObject json, Path root) {
-        if (!json.has("libraries")) return;
+    // Junta las librerías por ruta, guardando sha1/tamaño/url cuando el JSON los publica
+    private static void addLibrariesFromJson(Map<String, LaunchPlan.Library> libs, VersionJson json, Path root) {
+        for (VersionJson.Library compiled : json.libraries) {
+            JsonObject lib = compiled.json();
 
-        for (JsonElement e : json.getAsJsonArray("libraries")) {
-            JsonObject lib = e.getAsJsonObject();
-
-            if (!checkRules(lib)) continue;
+            if (!checkRules(compiled.rules())) continue;
 
             if (lib.has("downloads")) {
                 JsonObject downloads = lib.getAsJsonObject("downloads");
                 if (downloads.has("artifact")) {
                     JsonObject artifact = downloads.getAsJsonObject("artifact");
-                    String path = artifact.get("path").getAsString();
-                    libs.add(root.resolve("libraries").resolve(path).toString());
+                    String path = root.resolve("libraries").resolve(artifact.get("path").getAsString()).toString();
+                    libs.putIfAbsent(path, new LaunchPlan.Library(path,
+                            artifact.has("sha1") ? artifact.get("sha1").getAsString() : null,
+                            artifact.has("size") ? artifact.get("size").getAsLong() : -1,
+                            artifact.has("url") ? artifact.get("url").getAsString() : null));
                 }
             } else {
                 // Soporte para librerías sin bloque 'downloads' explícito (común en versiones viejas o mods directos)
@@ -121,96 +275,36 @@ public class ForgeLauncher {
                         String version = parts[2];
                         String jarName = artifact + "-" + version + ".jar";
                         Path p = root.resolve("libraries").resolve(domain).resolve(artifact).resolve(version).resolve(jarName);
-                        libs.add(p.toString());
+                        libs.putIfAbsent(p.toString(), new LaunchPlan.Library(p.toString(), null, -1, null));
                     }
                 }
             }
         }
     }
 
-    private static boolean checkRules(JsonObject lib) {
-        if (!lib.has("rules")) return true;
-
-        JsonArray rules = lib.getAsJsonArray("rules");
-        boolean allow = false;
-
-        for (JsonElement r : rules) {
-            JsonObject rule = r.getAsJsonObject();
-            String action = rule.get("action").getAsString();
-
-            if (rule.has("os")) {
-                String osName = rule.getAsJsonObject("os").get("name").getAsString();
-                if (osName.equalsIgnoreCase("windows")) {
-                    allow = action.equals("allow");
-                }
-            } else {
-                if (action.equals("allow")) allow = true;
-            }
-        }
-        return allow;
+    // Sin features: las reglas de librerías solo dependen del sistema operativo
+    static boolean checkRules(Rules rules) {
+        return rules.allows(Map.of());
     }
 
-    private static List<String> buildJvmArgs(JsonObject forgeJson, String cp, Path root, String forgeVersionName) {
+    private static List<String> buildJvmArgs(VersionJson forge, LaunchContext ctx) {
         List<String> args = new ArrayList<>();
-        // Argumento crítico para que encuentre los natives (DLLs)
-        args.add("-Djava.library.path=" + root.resolve("libraries").toString());
-
-        JsonArray jvm = forgeJson.getAsJsonObject("arguments").getAsJsonArray("jvm");
-
-        for (JsonElement e : jvm) {
-            if (e.isJsonPrimitive()) {
-                args.add(e.getAsString()
-                        .replace("${library_directory}", root.resolve("libraries").toString())
-                        .replace("${classpath_separator}", File.pathSeparator)
-                        .replace("${version_name}", forgeVersionName)
-                );
-            }
-        }
+        // Argumento crítico para que encuentre los natives (DLLs), ya extraídos en versions/<id>/natives
+        args.add("-Djava.library.path=" + ctx.get("natives_directory"));
+
+        forge.jvmArgs.resolve(ctx, args);
 
         args.add("-cp");
-        args.add(cp);
+        args.add(ctx.get("classpath"));
 
         return args;
     }
 
-    private static List<String> buildGameArgs(JsonObject vanillaJson, JsonObject forgeJson, Path root, String forgeVersionName) {
+    // Las plantillas ya vienen compiladas con el JSON: acá solo se resuelven contra el contexto
+    static List<String> buildGameArgs(VersionJson vanilla, VersionJson forge, LaunchContext ctx) {
         List<String> out = new ArrayList<>();
-
-        if (vanillaJson.has("arguments")) {
-            JsonArray gameVanilla = vanillaJson.getAsJsonObject("arguments").getAsJsonArray("game");
-            addArgsFromJson(out, gameVanilla, root, forgeVersionName);
-        }
-
-        if (forgeJson.has("arguments")) {
-            JsonArray gameForge = forgeJson.getAsJsonObject("arguments").getAsJsonArray("game");
-            addArgsFromJson(out, gameForge, root, forgeVersionName);
-        }
-
+        vanilla.gameArgs.resolve(ctx, out);
+        forge.gameArgs.resolve(ctx, out);
         return out;
     }
-
-    private static void addArgsFromJson(List<String> out, JsonArray arr, Path root, String forgeVersionName) {
-        String username = ConfigManager.getUsername(); // Obtener el usuario real
-        if (username == null || username.trim().isEmpty()) {
-            username = "Player";
-        }
-
-        for (JsonElement e : arr) {
-            if (e.isJsonPrimitive()) {
-                out.add(e.getAsString()
-                        .replace("${auth_player_name}", username)
-                        .replace("${version_name}", forgeVersionName)
-                        .replace("${game_directory}", root.toString())
-                        .replace("${assets_root}", root.resolve("assets").toString())
-                        .replace("${assets_index_name}", "5") // nombre del .json dentro de /assets/indexes
-                        .replace("${auth_uuid}", "00000000-0000-0000-0000-000000000000")
-                        .replace("${auth_access_token}", "0")
-                        .replace("${clientid}", "0")
-                        .replace("${auth_xuid}", "0")
-                        .replace("${user_type}", "mojang")
-                        .replace("${version_type}", "release")
-                );
-            }
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Archivo AppCDS dinámico para la JVM del juego. La primera vez que se lanza un plan se agrega
+ * -XX:ArchiveClassesAtExit y la JVM del juego vuelca las clases cargadas al cerrarse; las siguientes
+ * veces se arranca con -XX:SharedArchiveFile y esas clases ya vienen parseadas y verificadas.
+ * Lo grabado queda con nombre provisorio (.pending.jsa) y se adopta en el lanzamiento siguiente solo
+ * si esa corrida llegó a abrir la ventana ('markReady'); el de una corrida que se cayó se descarta.
+ * El nombre del archivo depende del classpath, los flags, la versión del pack y el Java usado,
+ * así que cualquier cambio genera uno nuevo y los viejos se borran. Cada instancia tiene el suyo.
+ * Se puede desactivar con -Dglauncher.gameCds=false.
+ */
+public class GameCds {
+
+    private static final String DIR = "cds";
+    private static final String PREFIX = "game-";
+    private static final String SUFFIX = ".jsa";
+    private static final String PENDING = ".pending" + SUFFIX;
+    private static final String READY = ".ready";
+
+    // ArchiveClassesAtExit existe desde Java 13
+    private static final int MIN_JAVA = 13;
+
+    /** Flags de CDS para este lanzamiento (vacío si está desactivado o el Java no lo soporta). */
+    public static List<String> jvmArgs(Path root, Instance instance, LaunchPlan plan, String javaCommand) {
+        if (!Boolean.parseBoolean(System.getProperty("glauncher.gameCds", "true"))) return List.of();
+        if (JvmTuning.javaVersion(javaCommand) < MIN_JAVA) return List.of();
+
+        Path dir = root.resolve(DIR);
+        String prefix = PREFIX + instance.id() + "-";
+        String base = prefix + key(instance.packVersion, plan, javaCommand);
+        Path archive = dir.resolve(base + SUFFIX);
+        deleteStale(dir, prefix, base);
+
+        List<String> args = new ArrayList<>();
+        try {
+            adoptPending(dir, base);
+            if (Files.exists(archive) && Files.size(archive) > 0) {
+                Metrics.count("gameCds.used");
+                System.out.println("[Launcher] Usando archivo CDS del juego: " + archive.getFileName());
+                args.add("-XX:SharedArchiveFile=" + archive);
+                // Si el archivo no sirve (ej: Java actualizado en el mismo lugar) la JVM sigue sin él
+                args.add("-Xshare:auto");
+            } else {
+                Files.createDirectories(dir);
+                Files.deleteIfExists(dir.resolve(base + READY));
+                Metrics.count("gameCds.recorded");
+                System.out.println("[Launcher] Se grabará el archivo CDS del juego al cerrarlo (la próxima vez arranca más rápido).");
+                args.add("-XX:ArchiveClassesAtExit=" + dir.resolve(base + PENDING));
+            }
+        } catch (IOException e) {
+            System.out.println("AVISO: No se pudo preparar el archivo CDS del juego: " + e.getMessage());
+            return List.of();
+        }
+        return args;
+    }
+
+    /**
+     * Avisa que el juego lanzado con este plan llegó a abrir su ventana: lo que grabe al cerrarse se
+     * puede usar. Sin este aviso (el juego se cayó al arrancar) el archivo provisorio se descarta.
+     */
+    public static void markReady(Path root, Instance instance, LaunchPlan plan, String javaCommand) {
+        Path dir = root.resolve(DIR);
+        String base = PREFIX + instance.id() + "-" + key(instance.packVersion, plan, javaCommand);
+        if (Files.exists(dir.resolve(base + SUFFIX))) return; // ya se estaba usando, no se grabó nada
+        try {
+            AtomicFiles.writeString(dir.resolve(base + READY), "");
+        } catch (IOException e) {
+            System.out.println("AVISO: No se pudo marcar el archivo CDS del juego: " + e.getMessage());
+        }
+    }
+
+    // Lo grabado por la corrida anterior pasa a ser el archivo en uso si esa corrida llegó a arrancar
+    private static void adoptPending(Path dir, String base) throws IOException {
+        Path pending = dir.resolve(base + PENDING);
+        Path ready = dir.resolve(base + READY);
+        if (!Files.exists(pending)) return;
+        if (Files.exists(ready) && Files.size(pending) > 0) {
+            AtomicFiles.replace(pending, dir.resolve(base + SUFFIX));
+            System.out.println("[Launcher] Archivo CDS del juego grabado en la corrida anterior, listo para usar.");
+        } else {
+            Metrics.count("gameCds.discarded");
+            System.out.println("[Launcher] Se descarta el archivo CDS de una corrida que no llegó a arrancar.");
+            pending.toFile().setWritable(true);
+            Files.deleteIfExists(pending);
+        }
+        Files.deleteIfExists(ready);
+    }
+
+    // Todo lo que invalida el archivo: classpath y flags, clase principal, pack y la instalación de Java
+    static String key(String packVersion, LaunchPlan plan, String javaCommand) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(packVersion).append('\n');
+        sb.append(plan.mainClass).append('\n');
+        for (String arg : plan.jvmArgs) sb.append(arg).append('\n');
+        sb.append(javaCommand).append('\n');
+        sb.append(javaRelease(javaCommand));
+        return Hashes.sha256(sb.toString()).substring(0, 16);
+    }
+
+    // Contenido del archivo "release" del Java (versión exacta y vendor); vacío si no hay
+    private static String javaRelease(String javaCommand) {
+        Path bin = Paths.get(javaCommand).toAbsolutePath().getParent();
+        if (bin == null || bin.getParent() == null) return "";
+        try {
+            return Files.readString(bin.getParent().resolve("release"));
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    // Borra los archivos de planes anteriores de la misma instancia (solo sirve el actual)
+    private static void deleteStale(Path dir, String prefix, String current) {
+        if (!Files.isDirectory(dir)) return;
+        String kinds = "(" + Pattern.quote(SUFFIX) + "|" + Pattern.quote(PENDING) + "|" + Pattern.quote(READY) + ")";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                // Solo los de esta instancia y los de versiones anteriores del launcher, que no llevaban el id
+                boolean ours = name.matches(Pattern.quote(prefix) + "[0-9a-f]{16}" + kinds)
+                        || name.matches(PREFIX + "[0-9a-f]{16}\\" + SUFFIX);
+                if (name.startsWith(current + ".") || !ours) continue;
+                try {
+                    file.toFile().setWritable(true); // la JVM lo deja de solo lectura y Windows no lo borra así
+                    Files.deleteIfExists(file);
+                    System.out.println("Archivo CDS viejo eliminado: " + file.getFileName());
+                } catch (IOException e) {
+                    // En uso por un juego que sigue abierto; se intenta la próxima vez
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("AVISO: No se pudo limpiar la carpeta de CDS: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proceso del juego. La salida (stdout y stderr) va directo a un archivo de log rotativo en
+ * logs/launcher, así el juego puede seguir escribiendo cuando el launcher se cierra. Mientras el
+ * launcher está abierto, un hilo lee ese archivo: guarda las últimas líneas en un buffer circular y
+ * busca las marcas que indican que la ventana del juego ya se creó. Si el proceso termina antes,
+ * se informa como crash junto con el final del log.
+ */
+public class GameProcess {
+
+    // Líneas que aparecen cuando el juego ya abrió su ventana (Minecraft / pantalla de carga de Forge)
+    private static final List<String> READY_MARKERS = List.of(
+            "Backend library: LWJGL version",
+            "Loading ImmediateWindowProvider",
+            "[EARLYDISPLAY]");
+
+    // Si no aparece ninguna marca pero el proceso sigue vivo, se da por arrancado igual
+    private static final long READY_TIMEOUT_MS = Long.getLong("glauncher.gameReadyTimeoutMs", 90_000);
+    private static final long POLL_MS = 100;
+    private static final int TAIL_LINES = 200;
+    private static final int KEEP_LOGS = 5;
+
+    public enum State { READY, ALIVE_NO_MARKER, CRASHED }
+
+    /** Resultado del arranque: estado, código de salida (si terminó), últimas líneas y archivo de log. */
+    public record Outcome(State state, int exitCode, List<String> tail, Path logFile) {
+    }
+
+    private final Process process;
+    private final Path logFile;
+    private final long startNanos = System.nanoTime();
+    private final ArrayDeque<String> tail = new ArrayDeque<>(TAIL_LINES);
+    private final CompletableFuture<Outcome> outcome = new CompletableFuture<>();
+    private final List<Runnable> onStarted = new CopyOnWriteArrayList<>();
+
+    private GameProcess(Process process, Path logFile) {
+        this.process = process;
+        this.logFile = logFile;
+    }
+
+    public static GameProcess start(List<String> command, Path workDir, Path logsDir) throws IOException {
+        Files.createDirectories(logsDir);
+        rotate(logsDir);
+        Path logFile = logsDir.resolve("game-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")) + ".log");
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(workDir.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.to(logFile.toFile()));
+        pb.redirectInput(ProcessBuilder.Redirect.PIPE);
+
+        Process process;
+        try (Metrics.Span span = Metrics.span(Metrics.PROCESS_SPAWN, command.get(0))) {
+            try {
+                process = pb.start();
+            } catch (IOException e) {
+                span.failed();
+                throw e;
+            }
+        }
+        process.getOutputStream().close(); // el juego no lee de stdin
+
+        GameProcess game = new GameProcess(process, logFile);
+        Thread watcher = new Thread(game::watch, "game-log-tail");
+        watcher.setDaemon(true);
+        watcher.start();
+        System.out.println("[Launcher] Juego iniciado (pid " + process.pid() + "), log: " + logFile);
+        return game;
+    }
+
+    /** Espera a que el juego esté arriba o termine. */
+    public Outcome awaitReady() throws InterruptedException {
+        try {
+            return outcome.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Corre 'action' si el juego llega a arrancar (marca de arranque o sigue vivo al vencer la espera),
+     * antes de que 'awaitReady' devuelva; así termina aunque el launcher cierre enseguida.
+     */
+    public void whenStarted(Runnable action) {
+        onStarted.add(action);
+    }
+
+    public synchronized List<String> tail() {
+        return new ArrayList<>(tail);
+    }
+
+    public Path logFile() {
+        return logFile;
+    }
+
+    // Sigue el archivo de log hasta que aparece una marca, se vence el tiempo o el proceso termina
+    private void watch() {
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(READY_TIMEOUT_MS);
+        StringBuilder partial = new StringBuilder();
+        // Un solo decoder para todo el log: los bytes de un carácter cortado entre dos lecturas quedan
+        // en 'buffer' hasta la siguiente. 'chars' alcanza porque en UTF-8 cada byte da a lo sumo un char.
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        CharBuffer chars = CharBuffer.allocate(buffer.capacity());
+        long position = 0;
+
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            while (true) {
+                boolean exited = !process.isAlive();
+
+                int read;
+                while ((read = channel.read(buffer, position)) > 0) {
+                    position += read;
+                    decoder.decode(buffer.flip(), chars, false);
+                    buffer.compact();
+                    partial.append(chars.flip());
+                    chars.clear();
+                    if (consumeLines(partial)) {
+                        finish(State.READY, -1);
+                        return;
+                    }
+                }
+
+                if (exited) {
+                    decoder.decode(buffer.flip(), chars, true);
+                    decoder.flush(chars);
+                    partial.append(chars.flip());
+                    consumeLines(partial);
+                    if (!partial.isEmpty()) addLine(partial.toString());
+                    finish(State.CRASHED, process.exitValue());
+                    return;
+                }
+                if (System.nanoTime() > deadline) {
+                    finish(State.ALIVE_NO_MARKER, -1);
+                    return;
+                }
+                Thread.sleep(POLL_MS);
+            }
+        } catch (IOException | InterruptedException e) {
+            System.out.println("AVISO: No se pudo seguir el log del juego: " + e.getMessage());
+            finish(process.isAlive() ? State.ALIVE_NO_MARKER : State.CRASHED,
+                    process.isAlive() ? -1 : process.exitValue());
+        }
+    }
+
+    // Pasa las líneas completas al buffer; true si alguna es una marca de arranque
+    private boolean consumeLines(StringBuilder partial) {
+        boolean ready = false;
+        int newline;
+        while ((newline = partial.indexOf("\n")) >= 0) {
+            String line = partial.substring(0, newline).stripTrailing();
+            partial.delete(0, newline + 1);
+            addLine(line);
+            for (String marker : READY_MARKERS) {
+                if (line.contains(marker)) ready = true;
+            }
+        }
+        return ready;
+    }
+
+    private synchronized void addLine(String line) {
+        if (tail.size() == TAIL_LINES) tail.removeFirst();
+        tail.addLast(line);
+    }
+
+    private void finish(State state, int exitCode) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        Metrics.count("game." + state.name().toLowerCase(Locale.ROOT));
+        switch (state) {
+            case READY -> System.out.println("[Launcher] El juego abrió su ventana (" + elapsedMs + " ms).");
+            case ALIVE_NO_MARKER -> System.out.println("[Launcher] El juego sigue corriendo tras " + elapsedMs
+                    + " ms sin marca de arranque; se da por iniciado.");
+            case CRASHED -> System.out.println("ERROR: El juego terminó con código " + exitCode + " a los "
+                    + elapsedMs + " ms. Log: " + logFile);
+        }
+        if (state != State.CRASHED) {
+            for (Runnable action : onStarted) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    System.out.println("AVISO: " + e);
+                }
+            }
+        }
+        outcome.complete(new Outcome(state, exitCode, tail(), logFile));
+    }
+
+    // Deja solo los últimos KEEP_LOGS - 1 logs (el nuevo completa la cuenta)
+    private static void rotate(Path logsDir) {
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(logsDir, "game-*.log")) {
+            files.forEach(logs::add);
+        } catch (IOException e) {
+            return;
+        }
+        logs.sort(Comparator.comparing(Path::getFileName));
+        for (int i = 0; i < logs.size() - (KEEP_LOGS - 1); i++) {
+            try {
+                Files.deleteIfExists(logs.get(i));
+            } catch (IOException e) {
+                // En uso por otro juego abierto; queda para la próxima
+            }
+        }
+    }
+}
@@ -0,0 +1,531 @@
+package com.milauncher;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Paquete formato 2 (.glpack). Un índice binario al principio lista cada archivo con su tamaño, SHA-256,
+ * bloque y posición dentro del bloque; después vienen los bloques. Los archivos de texto chicos (config,
+ * JSON, lang) se comprimen juntos en bloques "sólidos" de ~4 MB, con mucho mejor resultado que DEFLATE
+ * archivo por archivo; lo que ya viene comprimido (jar, png, ogg) va en bloques sin comprimir.
+ * Cada bloque se puede leer por separado, así que se extrae en paralelo y se puede sacar solo una parte.
+ *
+ * Estructura (big-endian):
+ *   "GLPACK", versión (short)
+ *   cantidad de bloques (int), cantidad de entradas (int)
+ *   por bloque: método (byte), offset desde el fin del índice (long), tamaño comprimido (long), tamaño original (long)
+ *   por entrada: ruta (UTF), tamaño (long), SHA-256 (32 bytes), bloque (int, -1 = carpeta), offset en el bloque (long)
+ *   datos de los bloques
+ */
+public final class GlPack implements Closeable {
+
+    public static final String EXTENSION = ".glpack";
+
+    private static final byte[] MAGIC = "GLPACK".getBytes(StandardCharsets.US_ASCII);
+    private static final short VERSION = 2;
+
+    static final byte STORED = 0;
+    static final byte DEFLATED = 1;
+
+    // Bloques sólidos de ~4 MB: buena compresión y suficientes bloques para repartir entre hilos
+    private static final long SOLID_BLOCK = 4L * 1024 * 1024;
+    private static final long STORED_BLOCK = 64L * 1024 * 1024;
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+
+    // Formatos ya comprimidos: volver a pasarlos por DEFLATE solo gasta CPU
+    private static final Set<String> INCOMPRESSIBLE = Set.of(
+            "jar", "zip", "png", "jpg", "jpeg", "ogg", "mp3", "gz", "xz", "7z", "mca", "nbt", "glpack");
+
+    record Block(byte method, long offset, long compressedSize, long rawSize) {
+    }
+
+    /** Archivo (o carpeta, con bloque -1) dentro del paquete. */
+    public record Entry(String path, long size, String sha256, int block, long offset) {
+        public boolean isDirectory() {
+            return block < 0;
+        }
+    }
+
+    /** Contenido a empaquetar: ruta dentro del paquete, tamaño y cómo abrirlo (null para carpetas). */
+    public record Source(String path, long size, Opener opener) {
+    }
+
+    @FunctionalInterface
+    public interface Opener {
+        InputStream open() throws IOException;
+    }
+
+    /** Destino de la extracción: dónde escribir cada entrada y qué hacer cuando quedó escrita y verificada. */
+    public interface Sink {
+        Path target(Entry entry) throws IOException;
+
+        void done(Entry entry, Path written) throws IOException;
+    }
+
+    private final FileChannel channel;
+    private final long dataStart;
+    private final List<Block> blocks;
+    private final List<Entry> entries;
+
+    private GlPack(FileChannel channel, long dataStart, List<Block> blocks, List<Entry> entries) {
+        this.channel = channel;
+        this.dataStart = dataStart;
+        this.blocks = blocks;
+        this.entries = entries;
+    }
+
+    public static boolean isGlPack(Path file) {
+        if (!Files.isRegularFile(file)) return false;
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static GlPack open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            CountingInputStream counting = new CountingInputStream(new BufferedInputStream(RegionInputStream.of(channel, 0)));
+            DataInputStream in = new DataInputStream(counting);
+            if (!Arrays.equals(in.readNBytes(MAGIC.length), MAGIC)) {
+                throw new IOException("No es un paquete .glpack: " + file);
+            }
+            short version = in.readShort();
+            if (version != VERSION) {
+                throw new IOException("Versión de .glpack no soportada (" + version + "): " + file);
+            }
+            int blockCount = in.readInt();
+            int entryCount = in.readInt();
+
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new Block(in.readByte(), in.readLong(), in.readLong(), in.readLong()));
+            }
+            List<Entry> entries = new ArrayList<>(entryCount);
+            byte[] sha = new byte[32];
+            for (int i = 0; i < entryCount; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                in.readFully(sha);
+                int block = in.readInt();
+                long offset = in.readLong();
+                if (block < -1 || block >= blockCount || offset < 0 || size < 0) {
+                    throw new IOException("Índice corrupto en " + path);
+                }
+                if (block >= 0 && (offset > blocks.get(block).rawSize() || size > blocks.get(block).rawSize() - offset)) {
+                    throw new IOException("Índice corrupto en " + path);
+                }
+                entries.add(new Entry(path, size, Hashes.hex(sha), block, offset));
+            }
+            return new GlPack(channel, counting.count, List.copyOf(blocks), List.copyOf(entries));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    /**
+     * Extrae 'wanted' en paralelo, un bloque por tarea. Cada archivo se verifica contra el SHA-256
+     * del índice antes de avisar a 'sink'. Las carpetas no pasan por acá (las crea quien llama).
+     */
+    public void extract(Collection<Entry> wanted, Sink sink, ProgressReporter progress, int workers) throws IOException {
+        Map<Integer, List<Entry>> byBlock = new TreeMap<>();
+        for (Entry entry : wanted) {
+            if (entry.isDirectory()) continue;
+            byBlock.computeIfAbsent(entry.block(), b -> new ArrayList<>()).add(entry);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, workers), r -> {
+            Thread t = new Thread(r, "glpack-extractor");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (Map.Entry<Integer, List<Entry>> group : byBlock.entrySet()) {
+                tasks.add(pool.submit(() -> {
+                    extractBlock(group.getKey(), group.getValue(), sink, progress);
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extracción interrumpida");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            throw new IOException("Error extrayendo el paquete", cause);
+        } finally {
+            PackExtractor.shutdown(pool);
+        }
+    }
+
+    private void extractBlock(int index, List<Entry> wanted, Sink sink, ProgressReporter progress) throws IOException {
+        Block block = blocks.get(index);
+        wanted.sort(Comparator.comparingLong(Entry::offset));
+        long start = dataStart + block.offset();
+
+        try (Metrics.Span span = Metrics.span(Metrics.EXTRACT_BLOCK, "bloque " + index).bytes(block.rawSize())) {
+            try {
+                readBlock(block, start, wanted, sink, progress);
+            } catch (IOException | RuntimeException e) {
+                span.failed();
+                throw e;
+            }
+        }
+    }
+
+    private void readBlock(Block block, long start, List<Entry> wanted, Sink sink, ProgressReporter progress)
+            throws IOException {
+        if (block.method() == STORED) {
+            // Sin comprimir: cada archivo se copia directo desde su región mapeada
+            for (Entry entry : wanted) {
+                Path out = sink.target(entry);
+                writeStored(start + entry.offset(), entry, out, progress);
+                sink.done(entry, out);
+            }
+        } else {
+            // Sólido: se descomprime el bloque de corrido, salteando lo que no se pidió
+            try (InputStream in = new InflaterInputStream(RegionInputStream.of(channel, start, block.compressedSize()),
+                    new Inflater(), 64 * 1024)) {
+                long position = 0;
+                byte[] buffer = new byte[64 * 1024];
+                for (Entry entry : wanted) {
+                    in.skipNBytes(entry.offset() - position);
+                    Path out = sink.target(entry);
+                    writeFrom(in, entry, out, buffer, progress);
+                    position = entry.offset() + entry.size();
+                    sink.done(entry, out);
+                }
+            }
+        }
+    }
+
+    private void writeStored(long offset, Entry entry, Path out, ProgressReporter progress) throws IOException {
+        prepare(out);
+        MessageDigest digest = Hashes.sha256();
+        try (FileChannel target = FileChannel.open(out, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long copied = 0;
+            while (copied < entry.size()) {
+                long chunk = Math.min(MAP_CHUNK, entry.size() - copied);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, offset + copied, chunk);
+                digest.update(region.duplicate());
+                while (region.hasRemaining()) {
+                    target.write(region, copied + region.position());
+                }
+                copied += chunk;
+                progress.add(chunk);
+            }
+        }
+        verify(entry, digest);
+    }
+
+    private static void writeFrom(InputStream in, Entry entry, Path out, byte[] buffer, ProgressReporter progress)
+            throws IOException {
+        prepare(out);
+        MessageDigest digest = Hashes.sha256();
+        try (OutputStream target = Files.newOutputStream(out, StandardOpenOption.CREATE_NEW)) {
+            long remaining = entry.size();
+            while (remaining > 0) {
+                int len = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (len < 0) throw new EOFException("Bloque truncado en " + entry.path());
+                digest.update(buffer, 0, len);
+                target.write(buffer, 0, len);
+                remaining -= len;
+                progress.add(len);
+            }
+        }
+        verify(entry, digest);
+    }
+
+    // Si el destino era un enlace duro al store, se corta antes de escribir para no modificar el blob
+    private static void prepare(Path out) throws IOException {
+        Files.createDirectories(out.getParent());
+        Files.deleteIfExists(out);
+    }
+
+    private static void verify(Entry entry, MessageDigest digest) throws IOException {
+        String actual = Hashes.hex(digest.digest());
+        if (!actual.equals(entry.sha256())) {
+            throw new IOException("SHA-256 distinto en " + entry.path() + " (paquete dañado)");
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryReader {
+        void accept(Entry entry, InputStream content) throws IOException;
+    }
+
+    /** Recorre las entradas (carpetas primero, después en el orden de los bloques) descomprimiendo cada bloque una vez. */
+    public void readAll(EntryReader reader) throws IOException {
+        List<Entry> files = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.isDirectory()) reader.accept(entry, InputStream.nullInputStream());
+            else files.add(entry);
+        }
+        files.sort(Comparator.comparingInt(Entry::block).thenComparingLong(Entry::offset));
+
+        int i = 0;
+        while (i < files.size()) {
+            int index = files.get(i).block();
+            Block block = blocks.get(index);
+            long start = dataStart + block.offset();
+            if (block.method() == STORED) {
+                for (; i < files.size() && files.get(i).block() == index; i++) {
+                    Entry entry = files.get(i);
+                    reader.accept(entry, RegionInputStream.of(channel, start + entry.offset(), entry.size()));
+                }
+                continue;
+            }
+            try (InputStream in = new InflaterInputStream(RegionInputStream.of(channel, start, block.compressedSize()),
+                    new Inflater(), 64 * 1024)) {
+                long position = 0;
+                for (; i < files.size() && files.get(i).block() == index; i++) {
+                    Entry entry = files.get(i);
+                    in.skipNBytes(entry.offset() - position);
+                    BoundedInputStream content = new BoundedInputStream(in, entry.size(), false);
+                    reader.accept(entry, content);
+                    content.skipNBytes(content.remaining); // por si no se leyó todo
+                    position = entry.offset() + entry.size();
+                }
+            }
+        }
+    }
+
+    /** Contenido de una entrada; en bloques sólidos descomprime desde el inicio del bloque (para leer pocas). */
+    public InputStream open(Entry entry) throws IOException {
+        Block block = blocks.get(entry.block());
+        long start = dataStart + block.offset();
+        if (block.method() == STORED) {
+            return RegionInputStream.of(channel, start + entry.offset(), entry.size());
+        }
+        InputStream in = new InflaterInputStream(RegionInputStream.of(channel, start, block.compressedSize()), new Inflater(), 64 * 1024);
+        in.skipNBytes(entry.offset());
+        return new BoundedInputStream(in, entry.size(), true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Escribe un paquete con 'sources'. Los bloques van primero a un temporal, porque el índice
+     * (que va al principio) necesita sus tamaños; al final todo se mueve de forma atómica a 'out'.
+     */
+    public static void write(List<Source> sources, Path out) throws IOException {
+        List<Source> dirs = new ArrayList<>();
+        List<Source> stored = new ArrayList<>();
+        List<Source> solid = new ArrayList<>();
+        for (Source source : sources) {
+            if (source.opener() == null) dirs.add(source);
+            else if (!isCompressible(source.path())) stored.add(source);
+            else solid.add(source);
+        }
+        // Los archivos del mismo tipo juntos comprimen mejor (el diccionario de DEFLATE los aprovecha)
+        solid.sort(Comparator.comparing((Source s) -> extension(s.path())).thenComparing(Source::path));
+        stored.sort(Comparator.comparing(Source::path));
+
+        List<Block> blocks = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+        for (Source dir : dirs) {
+            entries.add(new Entry(dir.path(), 0, "0".repeat(64), -1, 0));
+        }
+
+        Path data = out.resolveSibling(out.getFileName() + ".data.tmp");
+        try {
+            try (FileChannel dataChannel = FileChannel.open(data, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeBlocks(solid, DEFLATED, SOLID_BLOCK, dataChannel, blocks, entries);
+                writeBlocks(stored, STORED, STORED_BLOCK, dataChannel, blocks, entries);
+            }
+
+            AtomicFiles.write(out, tmp -> {
+                try (OutputStream fileOut = Files.newOutputStream(tmp)) {
+                    DataOutputStream header = new DataOutputStream(new BufferedOutputStream(fileOut));
+                    header.write(MAGIC);
+                    header.writeShort(VERSION);
+                    header.writeInt(blocks.size());
+                    header.writeInt(entries.size());
+                    for (Block block : blocks) {
+                        header.writeByte(block.method());
+                        header.writeLong(block.offset());
+                        header.writeLong(block.compressedSize());
+                        header.writeLong(block.rawSize());
+                    }
+                    for (Entry entry : entries) {
+                        header.writeUTF(entry.path());
+                        header.writeLong(entry.size());
+                        header.write(HexFormat.of().parseHex(entry.sha256()));
+                        header.writeInt(entry.block());
+                        header.writeLong(entry.offset());
+                    }
+                    header.flush();
+                    Files.copy(data, fileOut);
+                }
+            });
+        } finally {
+            Files.deleteIfExists(data);
+        }
+    }
+
+    // Reparte los archivos en bloques de hasta 'target' bytes (un archivo más grande ocupa su propio bloque)
+    private static void writeBlocks(List<Source> sources, byte method, long target, FileChannel data,
+                                    List<Block> blocks, List<Entry> entries) throws IOException {
+        int i = 0;
+        byte[] buffer = new byte[64 * 1024];
+        while (i < sources.size()) {
+            long blockStart = data.position();
+            long raw = 0;
+            int index = blocks.size();
+            OutputStream channelOut = Channels.newOutputStream(data);
+            Deflater deflater = method == DEFLATED ? new Deflater(Deflater.BEST_COMPRESSION) : null;
+            OutputStream out = deflater != null
+                    ? new DeflaterOutputStream(channelOut, deflater, 64 * 1024)
+                    : new BufferedOutputStream(channelOut, 64 * 1024);
+            try {
+                do {
+                    Source source = sources.get(i++);
+                    MessageDigest digest = Hashes.sha256();
+                    long written = 0;
+                    try (InputStream in = source.opener().open()) {
+                        int len;
+                        while ((len = in.read(buffer)) > 0) {
+                            digest.update(buffer, 0, len);
+                            out.write(buffer, 0, len);
+                            written += len;
+                        }
+                    }
+                    entries.add(new Entry(source.path(), written, Hashes.hex(digest.digest()), index, raw));
+                    raw += written;
+                } while (i < sources.size() && raw < target);
+
+                if (out instanceof DeflaterOutputStream deflating) deflating.finish();
+                out.flush();
+            } finally {
+                if (deflater != null) deflater.end();
+            }
+            blocks.add(new Block(method, blockStart, data.position() - blockStart, raw));
+        }
+    }
+
+    static boolean isCompressible(String path) {
+        return !INCOMPRESSIBLE.contains(extension(path));
+    }
+
+    private static String extension(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    // Lectura posicional de una región del archivo: varios hilos comparten el mismo canal sin moverle la posición
+    private static final class RegionInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        private RegionInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        static InputStream of(FileChannel channel, long position) throws IOException {
+            return new RegionInputStream(channel, position, channel.size());
+        }
+
+        static InputStream of(FileChannel channel, long position, long length) {
+            return new RegionInputStream(channel, position, position + length);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (position >= end) return -1;
+            int wanted = (int) Math.min(len, end - position);
+            int read = channel.read(ByteBuffer.wrap(b, off, wanted), position);
+            if (read > 0) position += read;
+            return read;
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+        long remaining;
+        private final boolean ownsStream; // en readAll el stream del bloque sigue para las entradas siguientes
+
+        BoundedInputStream(InputStream in, long limit, boolean ownsStream) {
+            super(in);
+            this.remaining = limit;
+            this.ownsStream = ownsStream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (ownsStream) super.close();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int read = super.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) remaining -= read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Utilidades de hash compartidas (SHA-256 para nuestro contenido, SHA-1 para lo que publica Mojang)
+public class Hashes {
+
+    public static MessageDigest sha256() {
+        return digest("SHA-256");
+    }
+
+    public static MessageDigest sha1() {
+        return digest("SHA-1");
+    }
+
+    public static String sha256(Path file) throws IOException {
+        return hash(file, sha256());
+    }
+
+    public static String sha1(Path file) throws IOException {
+        return hash(file, sha1());
+    }
+
+    public static String sha256(String text) {
+        return hex(sha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static String hash(Path file, MessageDigest digest) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, len);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.milauncher;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+// Cliente HTTP único para todo el launcher: reutiliza conexiones (y HTTP/2 cuando el servidor lo permite)
+public class Http {
+
+    public static final HttpClient CLIENT = HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(15))
+            .build();
+
+    public static final Duration READ_TIMEOUT = Duration.ofSeconds(30);
+
+    public static final String USER_AGENT = "GLauncher";
+}
@@ -0,0 +1,132 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instancia del juego (un modpack): su propia carpeta de juego con mods, config, mundos, pack_version.txt,
+ * manifiesto y plan de lanzamiento. libraries/, assets/, versions/ y el store de contenido se comparten
+ * en la raíz, así agregar una instancia solo ocupa lo que tiene de distinto.
+ * La lista se lee de instances.json en la raíz; si no existe, hay una sola instancia ("default")
+ * que usa la raíz como carpeta de juego, igual que antes.
+ */
+public class Instance {
+
+    public static final String FILE_NAME = "instances.json";
+    public static final String DEFAULT_ID = "default";
+
+    // Entradas del paquete que van a la raíz común y no a la carpeta de la instancia
+    private static final String[] SHARED_DIRS = {"libraries/", "assets/", "versions/"};
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    String id;
+    String name;
+    String packVersion;
+    String pack = "minecraft_package.zip"; // junto al launcher (user.dir); .zip o .glpack
+    String vanillaVersion = "1.20.1";
+    String forgeVersion = "1.20.1-forge-47.4.10";
+
+    /** La instancia de siempre: el paquete que viene con el launcher, instalado en la raíz. */
+    static Instance defaultInstance() {
+        Instance instance = new Instance();
+        instance.id = DEFAULT_ID;
+        instance.name = "GermFlog";
+        instance.packVersion = FileManager.PACK_VERSION;
+        return instance;
+    }
+
+    public static List<Instance> loadAll(Path root) {
+        List<Instance> out = new ArrayList<>();
+        Path file = root.resolve(FILE_NAME);
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                List<Instance> read = GSON.fromJson(reader, new TypeToken<List<Instance>>() {}.getType());
+                if (read != null) {
+                    for (Instance instance : read) {
+                        if (instance == null || !validId(instance.id)) {
+                            System.out.println("AVISO: Instancia sin id válido en " + FILE_NAME + ", se ignora.");
+                            continue;
+                        }
+                        instance.fillDefaults();
+                        out.add(instance);
+                    }
+                }
+            } catch (IOException | JsonParseException e) {
+                System.out.println("AVISO: " + FILE_NAME + " ilegible, se usa solo la instancia por defecto: " + e.getMessage());
+                out.clear();
+            }
+        }
+        if (out.stream().noneMatch(i -> i.id.equals(DEFAULT_ID))) {
+            out.add(0, defaultInstance());
+        }
+        return out;
+    }
+
+    /** La instancia elegida en la configuración, o la por defecto si ya no existe. */
+    public static Instance selected(Path root) {
+        String id = ConfigManager.getInstanceId();
+        List<Instance> all = loadAll(root);
+        return all.stream().filter(i -> i.id.equals(id)).findFirst().orElse(all.get(0));
+    }
+
+    // El id es el nombre de la carpeta: nada de separadores ni ".."
+    private static boolean validId(String id) {
+        return id != null && id.matches("[A-Za-z0-9._-]+") && !id.startsWith(".");
+    }
+
+    private void fillDefaults() {
+        Instance base = defaultInstance();
+        if (name == null) name = id;
+        if (packVersion == null) packVersion = base.packVersion;
+        if (pack == null) pack = base.pack;
+        if (vanillaVersion == null) vanillaVersion = base.vanillaVersion;
+        if (forgeVersion == null) forgeVersion = base.forgeVersion;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public boolean isDefault() {
+        return DEFAULT_ID.equals(id);
+    }
+
+    /** Carpeta de juego (game_directory): la raíz para la instancia por defecto, instances/<id> para las demás. */
+    public Path gameDir(Path root) {
+        return isDefault() ? root : root.resolve("instances").resolve(id);
+    }
+
+    // Si junto al .zip hay un .glpack con el mismo nombre se usa ese (formato 2, ver GlPack)
+    Path packFile() {
+        List<String> names = new ArrayList<>();
+        if (pack.endsWith(".zip")) names.add(pack.substring(0, pack.length() - 4) + GlPack.EXTENSION);
+        names.add(pack);
+        for (String name : names) {
+            Path local = Paths.get(System.getProperty("user.dir"), name);
+            if (Files.exists(local)) return local;
+            if (Files.exists(Paths.get(name))) return Paths.get(name);
+        }
+        return Paths.get(System.getProperty("user.dir"), pack);
+    }
+
+    static boolean isSharedEntry(String entryName) {
+        for (String dir : SHARED_DIRS) {
+            if (entryName.startsWith(dir)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
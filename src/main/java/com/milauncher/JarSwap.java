@@ -0,0 +1,59 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pone en su lugar el jar del launcher armado con un parche (ver Updater). Corre en otra JVM, desde el
+ * jar nuevo, porque el launcher tiene abierto el suyo y en Windows no se puede pisar mientras corre:
+ * espera a que el launcher cierre, copia el jar nuevo encima del instalado y lo vuelve a abrir.
+ *
+ *   java -cp updates/GLauncher-1.1.4.jar com.milauncher.JarSwap <pid> <jar nuevo> <jar instalado> <comando para reabrir...>
+ */
+public class JarSwap {
+
+    private static final int ATTEMPTS = 20;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("Uso: JarSwap <pid> <jar nuevo> <jar instalado> [comando...]");
+            return;
+        }
+        long pid = Long.parseLong(args[0]);
+        Path source = Paths.get(args[1]);
+        Path target = Paths.get(args[2]);
+        List<String> relaunch = List.of(args).subList(3, args.length);
+
+        ProcessHandle.of(pid).ifPresent(launcher -> {
+            try {
+                launcher.onExit().get(60, TimeUnit.SECONDS);
+            } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                System.out.println("AVISO: El launcher no terminó de cerrar, se intenta igual: " + e);
+            }
+        });
+
+        replace(source, target);
+
+        if (!relaunch.isEmpty()) {
+            new ProcessBuilder(relaunch).directory(target.toAbsolutePath().getParent().toFile()).start();
+        }
+    }
+
+    // El antivirus o el propio Windows pueden tener el jar abierto unos instantes después de cerrar el proceso
+    static void replace(Path source, Path target) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                AtomicFiles.write(target, tmp -> Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING));
+                System.out.println("Launcher actualizado: " + target);
+                return;
+            } catch (IOException e) {
+                if (attempt == ATTEMPTS) throw e;
+                Thread.sleep(500);
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Perfiles de flags de la JVM del juego según el hardware: tamaño del heap, recolector (G1 o ZGC
+ * generacional), pretouch y deduplicación de Strings. El perfil se elige por nombre en la configuración
+ * ("auto" decide solo) y siempre se valida contra los núcleos y la RAM física detectados, para no pedir
+ * un heap que la máquina no tiene (OOM, swap) ni uno tan chico que el GC corra todo el tiempo (tirones).
+ */
+public class JvmTuning {
+
+    public enum Profile {
+        AUTO("auto", "Automático"),
+        LOW_END("low-end", "Equipo modesto"),
+        BALANCED("balanced", "Equilibrado"),
+        HIGH_THROUGHPUT("high-throughput", "Alto rendimiento");
+
+        public final String id;
+        public final String label;
+
+        Profile(String id, String label) {
+            this.id = id;
+            this.label = label;
+        }
+
+        public static Profile fromId(String id) {
+            for (Profile p : values()) {
+                if (p.id.equalsIgnoreCase(id.trim())) return p;
+            }
+            return AUTO;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /** Núcleos, RAM física total (MB) y versión de Java con la que va a correr el juego. */
+    public record Hardware(int cores, long totalRamMb, int gameJavaVersion) {
+    }
+
+    /** Flags finales, el perfil efectivo y los avisos de la validación. */
+    public record Result(Profile profile, int heapMb, List<String> jvmArgs, List<String> warnings) {
+    }
+
+    // Nunca menos que esto: Forge con el modpack no llega a cargar con menos
+    static final int MIN_HEAP_MB = 2048;
+
+    // Piso absoluto si el equipo ni siquiera llega al mínimo: la JVM tiene que poder arrancar
+    static final int FLOOR_HEAP_MB = 512;
+
+    public static Hardware detect(String gameJava) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        long ramMb = -1;
+        try {
+            if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+                ramMb = os.getTotalMemorySize() / (1024 * 1024);
+            }
+        } catch (LinkageError | RuntimeException e) {
+            System.out.println("AVISO: No se pudo detectar la RAM del equipo: " + e.getMessage());
+        }
+        return new Hardware(cores, ramMb, javaVersion(gameJava));
+    }
+
+    /**
+     * Versión mayor del Java del juego según el archivo "release" de su instalación.
+     * Si no se puede saber (ej: "java" del PATH) se asume 17, el mínimo de Forge 1.20.1.
+     */
+    static int javaVersion(String javaBin) {
+        Path bin = Paths.get(javaBin).toAbsolutePath().getParent();
+        if (bin != null && bin.getParent() != null) {
+            Path release = bin.getParent().resolve("release");
+            if (Files.exists(release)) {
+                Properties props = new Properties();
+                try (var reader = Files.newBufferedReader(release)) {
+                    props.load(reader);
+                    String version = props.getProperty("JAVA_VERSION", "").replace("\"", "");
+                    String major = version.startsWith("1.") ? version.substring(2) : version;
+                    return Integer.parseInt(major.split("[.+-]")[0]);
+                } catch (IOException | NumberFormatException e) {
+                    // Se usa el mínimo
+                }
+            }
+        }
+        return 17;
+    }
+
+    // Lo que se deja libre para el sistema, el launcher y la memoria nativa del juego (texturas, LWJGL)
+    static long reserveMb(long totalRamMb) {
+        return Math.max(1536, totalRamMb / 4);
+    }
+
+    static Profile autoProfile(Hardware hw) {
+        long ram = hw.totalRamMb < 0 ? 8192 : hw.totalRamMb;
+        if (hw.cores <= 2 || ram <= 6144) return Profile.LOW_END;
+        if (hw.cores >= 8 && ram >= 16384) return Profile.HIGH_THROUGHPUT;
+        return Profile.BALANCED;
+    }
+
+    public static Result resolve(Profile requested, int requestedHeapMb, Hardware hw) {
+        List<String> warnings = new ArrayList<>();
+        Profile profile = requested == Profile.AUTO ? autoProfile(hw) : requested;
+
+        // 1. Validar el perfil contra el equipo
+        if (profile == Profile.HIGH_THROUGHPUT && hw.cores < 4) {
+            warnings.add("El perfil de alto rendimiento necesita al menos 4 núcleos (hay " + hw.cores
+                    + "); se usa el equilibrado.");
+            profile = Profile.BALANCED;
+        }
+
+        // 2. Heap: lo pedido, recortado a lo que la máquina puede dar
+        int heap = Math.max(MIN_HEAP_MB, requestedHeapMb);
+        if (hw.totalRamMb > 0) {
+            long available = hw.totalRamMb - reserveMb(hw.totalRamMb);
+            if (heap > available) {
+                // Nunca más de lo que el equipo puede dar, aunque quede por debajo del mínimo del modpack
+                int clamped = (int) Math.max(FLOOR_HEAP_MB, available);
+                if (clamped < MIN_HEAP_MB) {
+                    warnings.add("El equipo tiene " + hw.totalRamMb + " MB de RAM y solo puede dar " + clamped
+                            + " MB al juego, menos que el mínimo del modpack (" + MIN_HEAP_MB + " MB); puede no llegar a cargar.");
+                } else {
+                    warnings.add("Se pidieron " + requestedHeapMb + " MB pero el equipo tiene " + hw.totalRamMb
+                            + " MB; se usan " + clamped + " MB.");
+                }
+                heap = clamped;
+            }
+            if (profile == Profile.HIGH_THROUGHPUT && hw.totalRamMb - heap < 4096) {
+                // ZGC y el pretouch necesitan margen; sin él terminan en swap
+                warnings.add("Poca RAM libre para el perfil de alto rendimiento; se usa el equilibrado.");
+                profile = Profile.BALANCED;
+            }
+        }
+        if (requestedHeapMb < MIN_HEAP_MB) {
+            warnings.add("Se pidieron " + requestedHeapMb + " MB; el mínimo para el modpack es " + MIN_HEAP_MB + " MB.");
+        }
+
+        // 3. Flags
+        List<String> args = new ArrayList<>();
+        args.add("-Xmx" + heap + "M");
+        switch (profile) {
+            case LOW_END -> {
+                // Heap que crece según haga falta y pocos hilos de GC para no competir con el juego
+                args.add("-Xms" + Math.min(heap, 1024) + "M");
+                args.add("-XX:+UseG1GC");
+                args.add("-XX:MaxGCPauseMillis=100");
+                args.add("-XX:ParallelGCThreads=" + Math.max(1, Math.min(2, hw.cores / 2)));
+                args.add("-XX:ConcGCThreads=1");
+                args.add("-XX:+UseStringDeduplication");
+            }
+            case BALANCED -> {
+                // Heap fijo: sin redimensionados en medio de la partida
+                args.add("-Xms" + heap + "M");
+                addG1Tuning(args);
+                args.add("-XX:+UseStringDeduplication");
+            }
+            case HIGH_THROUGHPUT -> {
+                args.add("-Xms" + heap + "M");
+                if (hw.gameJavaVersion >= 21) {
+                    args.add("-XX:+UseZGC");
+                    args.add("-XX:+ZGenerational");
+                } else {
+                    addG1Tuning(args);
+                    warnings.add("ZGC generacional necesita Java 21 (el juego usa " + hw.gameJavaVersion + "); se usa G1.");
+                }
+                args.add("-XX:+AlwaysPreTouch");
+                args.add("-XX:+UseStringDeduplication");
+            }
+            default -> throw new IllegalStateException("Perfil sin resolver: " + profile);
+        }
+        args.add("-XX:+DisableExplicitGC");
+        // Evita escrituras al archivo hsperfdata en cada GC (tirones en discos lentos)
+        args.add("-XX:+PerfDisableSharedMem");
+
+        return new Result(profile, heap, List.copyOf(args), List.copyOf(warnings));
+    }
+
+    // Valores de G1 habituales en servidores y clientes con mods: generación joven grande y pausas cortas
+    private static void addG1Tuning(List<String> args) {
+        args.add("-XX:+UseG1GC");
+        args.add("-XX:+ParallelRefProcEnabled");
+        args.add("-XX:MaxGCPauseMillis=50");
+        args.add("-XX:+UnlockExperimentalVMOptions");
+        args.add("-XX:G1NewSizePercent=30");
+        args.add("-XX:G1MaxNewSizePercent=40");
+        args.add("-XX:G1HeapRegionSize=8M");
+        args.add("-XX:G1ReservePercent=20");
+        args.add("-XX:InitiatingHeapOccupancyPercent=15");
+    }
+
+    /** Resumen corto del equipo para mostrar en la configuración. */
+    public static String describe(Hardware hw) {
+        String ram = hw.totalRamMb > 0
+                ? String.format(Locale.ROOT, "%.1f GB de RAM", hw.totalRamMb / 1024.0)
+                : "RAM desconocida";
+        return hw.cores + " núcleos, " + ram + ", Java " + hw.gameJavaVersion;
+    }
+}
@@ -0,0 +1,62 @@
+package com.milauncher;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Valores inmutables para los placeholders ${...} de los argumentos y las features de las reglas.
+ * Se arma una sola vez por resolución del plan, en lugar de leer la config en cada argumento.
+ */
+public final class LaunchContext {
+
+    private final Map<String, String> values;
+    private final Map<String, Boolean> features;
+
+    private LaunchContext(Map<String, String> values, Map<String, Boolean> features) {
+        this.values = Map.copyOf(values);
+        this.features = Map.copyOf(features);
+    }
+
+    /** 'root' tiene libraries/assets/versions (compartidos); 'gameDir' es la carpeta de la instancia. */
+    public static LaunchContext forGame(Path root, Path gameDir, String versionName, String username, String assetIndexId) {
+        Map<String, String> values = new HashMap<>();
+        values.put("auth_player_name", username);
+        values.put("version_name", versionName);
+        values.put("game_directory", gameDir.toString());
+        values.put("assets_root", root.resolve("assets").toString());
+        values.put("assets_index_name", assetIndexId); // nombre del .json dentro de /assets/indexes
+        values.put("auth_uuid", "00000000-0000-0000-0000-000000000000");
+        values.put("auth_access_token", "0");
+        values.put("clientid", "0");
+        values.put("auth_xuid", "0");
+        values.put("user_type", "mojang");
+        values.put("version_type", "release");
+        values.put("library_directory", root.resolve("libraries").toString());
+        values.put("classpath_separator", File.pathSeparator);
+        values.put("natives_directory", Natives.directory(root, versionName).toString());
+        values.put("launcher_name", "GLauncher");
+
+        // Features de las reglas de argumentos: no usamos modo demo, resolución propia ni quick play
+        Map<String, Boolean> features = new HashMap<>();
+        features.put("is_demo_user", false);
+        features.put("has_custom_resolution", false);
+        return new LaunchContext(values, features);
+    }
+
+    /** Copia con un valor agregado o reemplazado (ej: el classpath, que se conoce más tarde). */
+    public LaunchContext with(String key, String value) {
+        Map<String, String> copy = new HashMap<>(values);
+        copy.put(key, value);
+        return new LaunchContext(copy, features);
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public Map<String, Boolean> features() {
+        return features;
+    }
+}
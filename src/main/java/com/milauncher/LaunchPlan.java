@@ -0,0 +1,133 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plan de lanzamiento ya resuelto (mainClass, classpath, argumentos JVM y del juego).
+ * Se guarda en disco junto con el tamaño, fecha y hash de los JSON de versión y la config usada,
+ * así un lanzamiento "en caliente" solo necesita revisar fechas y arrancar el proceso.
+ */
+public class LaunchPlan {
+
+    public static final String FILE_NAME = "launch_plan.json";
+
+    // Subir este número si cambia la forma de resolver el plan, para invalidar los guardados
+    private static final int FORMAT = 5;
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    // Estado de un archivo de entrada en el momento de resolver el plan
+    static class Input {
+        String path;
+        long size;
+        long modified;
+        String sha256;
+
+        static Input of(Path file) throws IOException {
+            Input input = new Input();
+            input.path = file.toAbsolutePath().toString();
+            input.size = Files.size(file);
+            input.modified = Files.getLastModifiedTime(file).toMillis();
+            input.sha256 = Hashes.sha256(file);
+            return input;
+        }
+    }
+
+    // Librería del classpath, con lo que publica el JSON de versión para verificarla o descargarla
+    static class Library {
+        String path;
+        String sha1;   // null si el JSON no lo trae (librerías declaradas solo por nombre)
+        long size = -1;
+        String url;
+
+        Library(String path, String sha1, long size, String url) {
+            this.path = path;
+            this.sha1 = sha1;
+            this.size = size;
+            this.url = url;
+        }
+    }
+
+    private int format = FORMAT;
+    private List<Input> inputs = new ArrayList<>();
+    private String configKey;
+
+    String mainClass;
+    List<String> jvmArgs = new ArrayList<>();
+    List<String> gameArgs = new ArrayList<>();
+    List<Library> libraries = new ArrayList<>();
+    List<Library> natives = new ArrayList<>(); // jars de natives de este sistema, a extraer en versions/<id>/natives
+    String assetIndexId;
+    Library assetIndex; // assets/indexes/<id>.json, con el sha1/url que publica el JSON vanilla
+
+    private LaunchPlan() {
+        // Para Gson
+    }
+
+    LaunchPlan(List<Path> inputFiles, String configKey) throws IOException {
+        for (Path file : inputFiles) {
+            inputs.add(Input.of(file));
+        }
+        this.configKey = configKey;
+    }
+
+    // Clave de la configuración que afecta a los argumentos (usuario y flags de memoria/GC)
+    static String configKey(String username, String jvmTuning) {
+        return Hashes.sha256(username + "\n" + jvmTuning);
+    }
+
+    /** Carga el plan guardado si sigue siendo válido para estos archivos y config; si no, null. */
+    static LaunchPlan loadIfValid(Path planFile, List<Path> inputFiles, String configKey) {
+        if (!Files.exists(planFile)) return null;
+
+        LaunchPlan plan;
+        try (Reader reader = Files.newBufferedReader(planFile)) {
+            plan = GSON.fromJson(reader, LaunchPlan.class);
+        } catch (IOException | JsonParseException e) {
+            System.out.println("AVISO: Plan de lanzamiento ilegible, se vuelve a resolver: " + e.getMessage());
+            return null;
+        }
+
+        if (plan == null || plan.format != FORMAT || !configKey.equals(plan.configKey)
+                || plan.inputs.size() != inputFiles.size()) {
+            return null;
+        }
+
+        try {
+            boolean touched = false;
+            for (int i = 0; i < inputFiles.size(); i++) {
+                Path file = inputFiles.get(i);
+                Input recorded = plan.inputs.get(i);
+                if (!recorded.path.equals(file.toAbsolutePath().toString())) return null;
+
+                long size = Files.size(file);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (size == recorded.size && modified == recorded.modified) continue;
+
+                // Cambió la fecha: solo si cambió el contenido hay que resolver de nuevo
+                if (size != recorded.size || !Hashes.sha256(file).equals(recorded.sha256)) return null;
+                recorded.modified = modified;
+                touched = true;
+            }
+            if (touched) plan.save(planFile);
+        } catch (IOException e) {
+            return null;
+        }
+        return plan;
+    }
+
+    void save(Path planFile) throws IOException {
+        AtomicFiles.write(planFile, tmp -> {
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                GSON.toJson(this, writer);
+            }
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package com.milauncher;
+
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Preparación especulativa del lanzamiento. Apenas se muestra el dashboard, un hilo de baja prioridad
+ * revisa la versión del paquete y, si está al día, resuelve el plan, verifica librerías, extrae natives
+ * y revisa assets; si hay una versión nueva, la deja preparada en .staging (ver PackStager). Al tocar
+ * INICIAR solo se usa ese resultado (o se espera a que termine) en lugar de empezar de cero. Si cambia
+ * algo que afecta al lanzamiento (usuario, RAM, perfil, instancia), lo que estaba en curso se cancela
+ * y se vuelve a empezar; mientras se prepara una actualización solo la reinicia el cambio de instancia.
+ */
+public class LaunchPreparer {
+
+    /** Resultado: la instancia, si hay que instalar/actualizar el paquete y, si no, lo ya preparado. */
+    public record Result(Instance instance, boolean needsUpdate, ForgeLauncher.Prepared prepared) {
+    }
+
+    // Claves de la config que cambian el plan o la instancia
+    private static final Set<String> RELEVANT_KEYS = Set.of("username", "ram", "jvmProfile", "instance");
+
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "launch-preparer");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // Una corrida de la preparación: su progreso se muestra si el usuario toca INICIAR mientras arma una actualización
+    private static final class Run {
+        final ProgressReporter progress = new ProgressReporter();
+        volatile boolean staging;
+        Future<Result> task;
+    }
+
+    private static Run current;
+    private static boolean listening;
+
+    /** Empieza (o reinicia) la preparación en segundo plano. */
+    public static synchronized void start() {
+        if (!listening) {
+            ConfigManager.addListener(key -> {
+                if (RELEVANT_KEYS.contains(key)) restart(key);
+            });
+            listening = true;
+        }
+        if (current != null) current.task.cancel(true);
+        Run run = new Run();
+        run.task = worker.submit(() -> prepare(run));
+        current = run;
+    }
+
+    private static synchronized void restart(String key) {
+        if (current == null) return; // Todavía no se mostró el dashboard
+        // Armar la actualización no depende de usuario, RAM ni perfil; el plan se resuelve igual al lanzar
+        if (current.staging && !key.equals("instance")) return;
+        System.out.println("[Launcher] Cambió '" + key + "': se vuelve a preparar el lanzamiento.");
+        Metrics.count("prelaunch.restarted");
+        start();
+    }
+
+    /**
+     * Progreso de la preparación en curso si está armando una actualización del paquete, o null.
+     * Launcher lo muestra en la barra mientras espera en 'take'.
+     */
+    public static synchronized ProgressReporter stagingProgress() {
+        return current != null && current.staging && !current.task.isDone() ? current.progress : null;
+    }
+
+    /**
+     * Toma el resultado para lanzar, esperando si todavía está en curso. Devuelve null si no hubo
+     * preparación o falló; en ese caso se sigue por el camino normal. El resultado se usa una sola vez.
+     */
+    public static Result take() throws InterruptedException {
+        Future<Result> task;
+        synchronized (LaunchPreparer.class) {
+            task = current != null ? current.task : null;
+            current = null;
+        }
+        if (task == null || task.isCancelled()) {
+            Metrics.count("prelaunch.miss");
+            return null;
+        }
+        try {
+            Result result = task.get();
+            Metrics.count(result != null && result.prepared() != null ? "prelaunch.hit" : "prelaunch.miss");
+            return result;
+        } catch (ExecutionException | CancellationException e) {
+            Metrics.count("prelaunch.miss");
+            return null;
+        }
+    }
+
+    private static Result prepare(Run run) throws Exception {
+        try (Metrics.Span span = Metrics.span("prelaunch", "")) {
+            Instance instance = Instance.selected(FileManager.getMinecraftDir());
+            if (FileManager.needsUpdate(instance)) {
+                run.staging = true;
+                // La nueva versión se arma aparte sin tocar la instalada; al click solo queda el cambio
+                if (Files.exists(instance.packFile())) {
+                    PackStager.stage(FileManager.getMinecraftDir(), instance, run.progress);
+                }
+                return new Result(instance, true, null);
+            }
+            if (Thread.interrupted()) throw new InterruptedException();
+            ForgeLauncher.Prepared prepared = ForgeLauncher.prepare(instance);
+            if (prepared == null) span.failed();
+            else System.out.println("[Launcher] Lanzamiento preparado de antemano.");
+            return new Result(instance, false, prepared);
+        } catch (Exception e) {
+            // Si fue por una cancelación no hay nada que avisar
+            if (!Thread.currentThread().isInterrupted() && !(e instanceof InterruptedException)) {
+                System.out.println("AVISO: Falló la preparación anticipada, se hará al iniciar: " + e);
+            }
+            throw e;
+        }
+    }
+}
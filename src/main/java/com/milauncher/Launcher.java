@@ -1,15 +1,18 @@
 package com.milauncher;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.geometry.Pos;
+import javafx.geometry.Rectangle2D;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
+import javafx.stage.Screen;
 import javafx.stage.Stage;
 
-import java.io.InputStream;
+import java.util.List;
 
 public class Launcher extends Application {
 
@@ -26,11 +29,13 @@ public class Launcher extends Application {
     @Override
     public void start(Stage stage) {
         System.out.println("--- INICIANDO LAUNCHER (DEBUG) ---");
+        StartupTimings.mark("fx-start");
 
         try {
             // Cargar config
             ConfigManager.load();
             System.out.println("Configuración cargada.");
+            StartupTimings.mark("config");
 
             Updater.checkUpdate();
 
@@ -39,25 +44,24 @@ public class Launcher extends Application {
             // Fondo base (Color sólido en caso de que no cargue la imagen)
             rootPane.setStyle("-fx-background-color: #2b2b2b;");
 
-            // Intentar cargar imagen de fondo
-            try {
-                InputStream bgStream = getClass().getResourceAsStream("/background.png");
-                if (bgStream != null) {
-                    Image img = new Image(bgStream);
+            // Imagen de fondo: se decodifica en segundo plano al tamaño de la pantalla y se pone cuando está lista
+            Rectangle2D screen = Screen.getPrimary().getBounds();
+            Image bgImage = ResourceLoader.image("background.png", screen.getWidth(), screen.getHeight());
+            if (bgImage != null) {
+                ResourceLoader.whenLoaded(bgImage, "background.png", img -> {
                     BackgroundImage bg = new BackgroundImage(img, BackgroundRepeat.NO_REPEAT, BackgroundRepeat.NO_REPEAT, BackgroundPosition.CENTER, new BackgroundSize(100, 100, true, true, true, true));
                     rootPane.setStyle(null);
                     rootPane.setBackground(new Background(bg));
                     System.out.println("Fondo cargado OK.");
-                } else {
-                    System.out.println("AVISO: background.png no encontrado. Usando color sólido.");
-                }
-            } catch (Exception e) {
-                System.err.println("Error cargando fondo: " + e.getMessage());
+                });
+            } else {
+                System.out.println("AVISO: background.png no encontrado. Usando color sólido.");
             }
 
             // Crear pantallas
             createLoginScreen();
             createMainDashboard(stage);
+            StartupTimings.mark("pantallas");
 
             // Seleccionar pantalla inicial
             if (ConfigManager.getUsername().isEmpty()) {
@@ -65,6 +69,7 @@ public class Launcher extends Application {
             } else {
                 rootPane.getChildren().add(mainDashboard);
                 updateUserInfo();
+                startPreparing();
             }
 
             Scene scene = new Scene(rootPane, 1280, 720);
@@ -83,23 +88,35 @@ public class Launcher extends Application {
 
             stage.setScene(scene);
             stage.setTitle("GLauncher");
+            StartupTimings.mark("css");
 
-            // 4. Cargar Icono de Ventana
-            try {
-                InputStream logoStream = getClass().getResourceAsStream("/logo.png");
-                if (logoStream != null) {
-                    stage.getIcons().add(new Image(logoStream));
+            // 4. Cargar Icono de Ventana (en segundo plano; la ventana arranca con el icono por defecto)
+            Image logo = ResourceLoader.image("logo.png", 64, 64);
+            if (logo != null) {
+                ResourceLoader.whenLoaded(logo, "logo.png", img -> {
+                    stage.getIcons().add(img);
                     System.out.println("Icono de ventana cargado OK.");
-                } else {
-                    System.out.println("AVISO: logo.png no encontrado. Usando icono por defecto de Java.");
-                }
-            } catch (Exception e) {
-                System.err.println("Error cargando logo.png: " + e.getMessage());
+                });
+            } else {
+                System.out.println("AVISO: logo.png no encontrado. Usando icono por defecto de Java.");
             }
 
             stage.show();
+            StartupTimings.mark("show");
             System.out.println("--- LAUNCHER INICIADO EXITOSAMENTE ---");
 
+            runAfterFirstFrame(() -> {
+                StartupTimings.mark("primer frame");
+                StartupTimings.print();
+
+                // Corrida de entrenamiento del build -Pfast-startup: solo interesa cargar las clases del arranque
+                if (Boolean.getBoolean("glauncher.cdsTraining")) {
+                    System.out.println("Entrenamiento CDS: primer frame listo, cerrando.");
+                    javafx.application.Platform.exit();
+                    System.exit(0);
+                }
+            });
+
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -127,6 +144,7 @@ public class Launcher extends Application {
                 ConfigManager.setUsername(name);
                 switchScreen(mainDashboard);
                 updateUserInfo();
+                startPreparing();
             }
         });
 
@@ -189,6 +207,17 @@ public class Launcher extends Application {
 
         playBox.getChildren().addAll(startButton, settingsBtn);
 
+        // Selector de instancia: solo aparece si instances.json define más de una
+        List<Instance> instances = Instance.loadAll(FileManager.getMinecraftDir());
+        if (instances.size() > 1) {
+            ChoiceBox<Instance> instanceChoice = new ChoiceBox<>();
+            instanceChoice.getItems().addAll(instances);
+            instanceChoice.setValue(Instance.selected(FileManager.getMinecraftDir()));
+            instanceChoice.setStyle("-fx-font-size: 16px;");
+            instanceChoice.setOnAction(e -> ConfigManager.setInstanceId(instanceChoice.getValue().id()));
+            playBox.getChildren().add(0, instanceChoice);
+        }
+
         progressBar = new ProgressBar(0);
         progressBar.setPrefWidth(400);
         progressBar.setVisible(false);
@@ -205,20 +234,15 @@ public class Launcher extends Application {
         Label supportText = new Label("Si queres apoyar al proyecto:");
         supportText.setStyle("-fx-text-fill: white; -fx-font-size: 18px");
 
-        // Carga protegida del icono de cafecito
+        // Icono de cafecito: el ImageView se muestra vacío hasta que termina de decodificarse
         ImageView supportIcon = new ImageView();
-        try {
-            InputStream is = getClass().getResourceAsStream("/cafecito.png");
-            if (is != null) {
-                Image image = new Image(is);
-                supportIcon.setImage(image);
-                supportIcon.setFitWidth(24);
-                supportIcon.setFitHeight(24);
-            } else {
-                System.out.println("AVISO: cafecito.png no encontrado.");
-            }
-        } catch (Exception e) {
-            System.err.println("Error cafecito icon: " + e.getMessage());
+        Image cafecito = ResourceLoader.image("cafecito.png", 24, 24);
+        if (cafecito != null) {
+            supportIcon.setImage(cafecito);
+            supportIcon.setFitWidth(24);
+            supportIcon.setFitHeight(24);
+        } else {
+            System.out.println("AVISO: cafecito.png no encontrado.");
         }
 
         Button donateBtn = new Button();
@@ -238,57 +262,205 @@ public class Launcher extends Application {
             startButton.setDisable(true);
             progressBar.setVisible(true);
             progressBar.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
-            statusLabel.setText("Descargando archivos...");
-
-            FileManager.ensureMinecraftFiles(
-                    progress -> progressBar.setProgress(progress),
-                    () -> {
-                        statusLabel.setText("Iniciando Minecraft...");
-                        progressBar.setProgress(1.0);
-                        new Thread(ForgeLauncher::launchGame).start(); // Lanzar el juego
-                        // Cerrar el launcher
-                        new Thread(() -> {
-                            try { Thread.sleep(2000); } catch (InterruptedException ex) {}
-                            javafx.application.Platform.runLater(() -> {
-                                javafx.application.Platform.exit();
-                                System.exit(0); // Fuerza bruta para matar todo proceso de JavaFX
-                            });
-                        }).start();
-                    }
-            );
+            statusLabel.setText("Preparando...");
+            // Si todavía está armando una actualización del paquete, se ve su avance mientras se espera
+            ProgressReporter staging = LaunchPreparer.stagingProgress();
+            if (staging != null) staging.bind(progressBar, statusLabel, "Preparando actualización");
+
+            // Si la preparación anticipada ya terminó (o está por terminar) solo queda arrancar el proceso
+            new Thread(() -> {
+                LaunchPreparer.Result ready;
+                try {
+                    ready = LaunchPreparer.take();
+                } catch (InterruptedException ex) {
+                    return;
+                } finally {
+                    if (staging != null) javafx.application.Platform.runLater(staging::unbind);
+                }
+                if (ready != null && ready.prepared() != null) {
+                    javafx.application.Platform.runLater(() -> statusLabel.setText("Iniciando Minecraft..."));
+                    superviseGame(ForgeLauncher.launchGame(ready.prepared()));
+                } else {
+                    javafx.application.Platform.runLater(this::installAndLaunch);
+                }
+            }, "game-launch").start();
+        });
+    }
+
+    // Camino completo: instalar/actualizar el paquete si hace falta y después preparar y lanzar
+    private void installAndLaunch() {
+        statusLabel.setText("Descargando archivos...");
+
+        ProgressReporter progress = new ProgressReporter();
+        progress.bind(progressBar, statusLabel, "Instalando archivos");
+        Instance instance = Instance.selected(FileManager.getMinecraftDir());
+
+        FileManager.ensureMinecraftFiles(
+                instance,
+                progress,
+                () -> {
+                    progress.unbind();
+                    statusLabel.setText("Iniciando Minecraft...");
+                    progressBar.setProgress(1.0);
+                    new Thread(() -> superviseGame(ForgeLauncher.launchGame(instance)), "game-launch").start();
+                },
+                error -> {
+                    progress.unbind();
+                    progressBar.setVisible(false);
+                    statusLabel.setText("No se pudieron instalar los archivos: " + error.getMessage());
+                    startButton.setDisable(false);
+                    startPreparing();
+                }
+        );
+    }
+
+    // Cierra el launcher recién cuando el juego abrió su ventana; si se cae antes, muestra el log
+    private void superviseGame(GameProcess game) {
+        if (game == null) {
+            javafx.application.Platform.runLater(() -> {
+                progressBar.setVisible(false);
+                statusLabel.setText("No se pudo iniciar Minecraft. Revisá la consola.");
+                startButton.setDisable(false);
+            });
+            return;
+        }
+        GameProcess.Outcome outcome;
+        try {
+            outcome = game.awaitReady();
+        } catch (InterruptedException ex) {
+            return;
+        }
+        if (outcome.state() == GameProcess.State.CRASHED) {
+            javafx.application.Platform.runLater(() -> {
+                progressBar.setVisible(false);
+                statusLabel.setText("Minecraft se cerró al iniciar.");
+                startButton.setDisable(false);
+                showCrash(outcome);
+                LaunchPreparer.start();
+            });
+            return;
+        }
+        javafx.application.Platform.runLater(() -> {
+            javafx.application.Platform.exit();
+            System.exit(0); // Fuerza bruta para matar todo proceso de JavaFX
         });
     }
 
+    // Muestra el final del log cuando el juego se cierra antes de abrir su ventana
+    private void showCrash(GameProcess.Outcome outcome) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error al iniciar");
+        alert.setHeaderText("Minecraft se cerró al iniciar (código " + outcome.exitCode() + ").");
+        alert.setContentText("Log completo: " + outcome.logFile());
+
+        List<String> tail = outcome.tail();
+        TextArea log = new TextArea(String.join("\n", tail.subList(Math.max(0, tail.size() - 60), tail.size())));
+        log.setEditable(false);
+        log.setWrapText(false);
+        log.setPrefSize(720, 320);
+        alert.getDialogPane().setExpandableContent(log);
+        alert.getDialogPane().setExpanded(true);
+        alert.showAndWait();
+    }
+
     private Button createLinkButton(String imageFileName, String url, Stage stage) {
         Button btn = new Button();
-        try {
-            InputStream is = getClass().getResourceAsStream("/" + imageFileName);
-            if (is != null) {
-                ImageView icon = new ImageView(new Image(is));
-                icon.setFitWidth(30);
-                icon.setFitHeight(30);
-                btn.setGraphic(icon);
-                btn.setStyle("-fx-background-color: transparent; -fx-padding: 0;");
-            } else {
-                // Si no hay imagen, mostramos texto de respaldo (ej: "youtube.png" -> "YT")
-                String textFallback = imageFileName.length() > 2 ? imageFileName.substring(0, 2).toUpperCase() : "??";
-                btn.setText(textFallback);
-                btn.setStyle("-fx-background-color: #555; -fx-text-fill: white;");
-                System.out.println("AVISO: " + imageFileName + " no encontrado.");
-            }
-        } catch (Exception e) {
-            btn.setText("??");
+        Image image = ResourceLoader.image(imageFileName, 30, 30);
+        if (image != null) {
+            ImageView icon = new ImageView(image);
+            icon.setFitWidth(30);
+            icon.setFitHeight(30);
+            btn.setGraphic(icon);
+            btn.setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        } else {
+            // Si no hay imagen, mostramos texto de respaldo (ej: "youtube.png" -> "YT")
+            String textFallback = imageFileName.length() > 2 ? imageFileName.substring(0, 2).toUpperCase() : "??";
+            btn.setText(textFallback);
+            btn.setStyle("-fx-background-color: #555; -fx-text-fill: white;");
+            System.out.println("AVISO: " + imageFileName + " no encontrado.");
         }
         btn.setOnAction(e -> getHostServices().showDocument(url));
         return btn;
     }
 
     private void showRamConfig() {
-        TextInputDialog dialog = new TextInputDialog(ConfigManager.getRam());
+        JvmTuning.Hardware hardware = JvmTuning.detect(ForgeLauncher.findGameJava());
+
+        Dialog<ButtonType> dialog = new Dialog<>();
         dialog.setTitle("Configuración");
-        dialog.setHeaderText("Asignación de Memoria RAM (MB)");
-        dialog.setContentText("RAM:");
-        dialog.showAndWait().ifPresent(ram -> ConfigManager.setRam(ram));
+        dialog.setHeaderText("Memoria y rendimiento del juego");
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+
+        TextField ramField = new TextField(String.valueOf(ConfigManager.getRamMb()));
+        ChoiceBox<JvmTuning.Profile> profileBox = new ChoiceBox<>();
+        profileBox.getItems().addAll(JvmTuning.Profile.values());
+        profileBox.setValue(ConfigManager.getJvmProfile());
+
+        Label hardwareLabel = new Label("Equipo: " + JvmTuning.describe(hardware));
+        Label preview = new Label();
+        preview.setWrapText(true);
+        preview.setMaxWidth(360);
+
+        // Muestra lo que realmente se va a usar (perfil efectivo, heap recortado y avisos); sin un número
+        // válido no se puede aceptar
+        Runnable updatePreview = () -> {
+            int ram = parseRamMb(ramField.getText());
+            dialog.getDialogPane().lookupButton(ButtonType.OK).setDisable(ram <= 0);
+            if (ram <= 0) {
+                preview.setText("La RAM tiene que ser un número en MB.");
+                return;
+            }
+            JvmTuning.Result result = JvmTuning.resolve(profileBox.getValue(), ram, hardware);
+            StringBuilder text = new StringBuilder("Se usará: " + result.profile().label + ", " + result.heapMb() + " MB");
+            result.warnings().forEach(w -> text.append("\n").append(w));
+            preview.setText(text.toString());
+        };
+        ramField.textProperty().addListener((obs, old, value) -> updatePreview.run());
+        profileBox.valueProperty().addListener((obs, old, value) -> updatePreview.run());
+        updatePreview.run();
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.addRow(0, new Label("RAM (MB):"), ramField);
+        grid.addRow(1, new Label("Perfil:"), profileBox);
+        grid.add(hardwareLabel, 0, 2, 2, 1);
+        grid.add(preview, 0, 3, 2, 1);
+        dialog.getDialogPane().setContent(grid);
+
+        dialog.showAndWait().filter(ButtonType.OK::equals).ifPresent(ok -> {
+            ConfigManager.setRamMb(parseRamMb(ramField.getText()));
+            ConfigManager.setJvmProfile(profileBox.getValue());
+        });
+    }
+
+    // MB escritos en el campo de RAM; -1 si no es un número
+    private static int parseRamMb(String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Corre 'action' cuando ya se dibujó el primer frame (el segundo pulso llega después del primer render)
+    private void runAfterFirstFrame(Runnable action) {
+        new AnimationTimer() {
+            private int frames;
+
+            @Override
+            public void handle(long now) {
+                if (++frames < 2) return;
+                stop();
+                action.run();
+            }
+        }.start();
+    }
+
+    // Con el dashboard a la vista se adelanta todo lo que no depende del click (ver LaunchPreparer)
+    private void startPreparing() {
+        if (Boolean.getBoolean("glauncher.cdsTraining")) return; // la corrida de entrenamiento cierra enseguida
+        LaunchPreparer.start();
     }
 
     private void switchScreen(javafx.scene.Node screen) {
@@ -0,0 +1,146 @@
+package com.milauncher;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Descarga las librerías que faltan (o están corruptas) usando downloads.artifact.url/sha1/size
+ * de los JSON de versión. Concurrencia acotada, reintentos con espera creciente y un único
+ * cliente HTTP compartido, así el paquete ZIP no necesita traer todas las librerías.
+ */
+public class LibraryDownloader {
+
+    // Descargas simultáneas como máximo (los servidores de Mojang/Forge limitan por IP)
+    private static final int MAX_PARALLEL = 6;
+    private static final int MAX_ATTEMPTS = 4;
+
+    // Para probar con un espejo local: -Dglauncher.libraryMirror=http://localhost:8080
+    // Se reemplaza el esquema y el host de cada URL, manteniendo la ruta.
+    private static final String MIRROR = System.getProperty("glauncher.libraryMirror");
+
+    /** Descarga las librerías indicadas que tengan URL. Devuelve cuántas se descargaron bien. */
+    public static int download(List<LaunchPlan.Library> libraries) throws IOException {
+        List<LaunchPlan.Library> fetchable = new ArrayList<>();
+        for (LaunchPlan.Library lib : libraries) {
+            if (lib.url != null && !lib.url.isBlank()) {
+                fetchable.add(lib);
+            } else {
+                System.out.println("AVISO: Sin URL de descarga para " + lib.path);
+            }
+        }
+        if (fetchable.isEmpty()) return 0;
+
+        System.out.println("[Launcher] Descargando " + fetchable.size() + " librerías...");
+        Semaphore slots = new Semaphore(MAX_PARALLEL);
+        int ok = 0;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (LaunchPlan.Library lib : fetchable) {
+                results.add(executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        return fetch(mirrored(lib.url, MIRROR), Paths.get(lib.path), lib.sha1, lib.size);
+                    } finally {
+                        slots.release();
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                try {
+                    if (result.get()) ok++;
+                } catch (ExecutionException e) {
+                    System.out.println("Error descargando librería: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Descarga interrumpida");
+                }
+            }
+        }
+        System.out.println("[Launcher] Librerías descargadas: " + ok + " de " + fetchable.size());
+        return ok;
+    }
+
+    /**
+     * Descarga 'url' en 'target' con reintentos. Si se conocen sha1 y tamaño se verifican al vuelo.
+     * Devuelve false si se agotaron los intentos.
+     */
+    static boolean fetch(String url, Path target, String sha1, long size) throws InterruptedException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                fetchOnce(url, target, sha1, size);
+                return true;
+            } catch (IOException e) {
+                System.out.println("Fallo descargando " + url + " (intento " + attempt + "/" + MAX_ATTEMPTS + "): "
+                        + e.getMessage());
+                if (attempt < MAX_ATTEMPTS) {
+                    // 1s, 2s, 4s... con algo de variación para no reintentar todos a la vez
+                    Thread.sleep((1000L << (attempt - 1)) + ThreadLocalRandom.current().nextInt(250));
+                }
+            }
+        }
+        return false;
+    }
+
+    // Descarga a un temporal verificando sha1 y tamaño al vuelo; solo si coincide reemplaza el destino
+    private static void fetchOnce(String url, Path target, String expectedSha1, long expectedSize)
+            throws IOException, InterruptedException {
+        try (Metrics.Span span = Metrics.span(Metrics.DOWNLOAD_FILE, url)) {
+            try {
+                span.bytes(transfer(url, target, expectedSha1, expectedSize));
+            } catch (IOException e) {
+                span.failed();
+                throw e;
+            }
+        }
+    }
+
+    private static long transfer(String url, Path target, String expectedSha1, long expectedSize)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Http.READ_TIMEOUT)
+                .header("User-Agent", Http.USER_AGENT)
+                .build();
+        HttpResponse<InputStream> response = Http.CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode());
+        }
+
+        Files.createDirectories(target.getParent());
+        Path tmp = target.resolveSibling(target.getFileName() + ".download");
+        MessageDigest digest = Hashes.sha1();
+        long size;
+        try (InputStream in = new DigestInputStream(response.body(), digest);
+             OutputStream out = Files.newOutputStream(tmp)) {
+            size = in.transferTo(out);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        String actual = Hashes.hex(digest.digest());
+        if ((expectedSize >= 0 && size != expectedSize) || (expectedSha1 != null && !actual.equalsIgnoreCase(expectedSha1))) {
+            Files.deleteIfExists(tmp);
+            throw new IOException("Contenido descargado no coincide (tamaño " + size + ", sha1 " + actual + ")");
+        }
+        AtomicFiles.replace(tmp, target);
+        return size;
+    }
+
+    // Reemplaza esquema y host de 'url' por los del espejo (si hay uno configurado)
+    static String mirrored(String url, String mirror) {
+        if (mirror == null || mirror.isBlank()) return url;
+        URI original = URI.create(url);
+        String base = mirror.endsWith("/") ? mirror.substring(0, mirror.length() - 1) : mirror;
+        return base + original.getRawPath();
+    }
+}
@@ -0,0 +1,148 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verificación previa al lanzamiento: cada librería del classpath tiene que existir y coincidir
+ * con el sha1 de downloads.artifact. Los hashes se calculan en paralelo con hilos virtuales y se
+ * recuerdan (ruta, tamaño, fecha, sha1) para que los siguientes lanzamientos solo re-hasheen lo que cambió.
+ */
+public class LibraryVerifier {
+
+    public static final String CACHE_FILE = "verified_libraries.json";
+
+    // Lecturas simultáneas como máximo; más que esto solo hace saltar al disco
+    private static final int MAX_PARALLEL_READS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    // Librería con problemas y el motivo, para mostrarlo o intentar repararla
+    public record Problem(LaunchPlan.Library library, String reason) {
+        @Override
+        public String toString() {
+            return reason + ": " + library.path;
+        }
+    }
+
+    private static class Verified {
+        long size;
+        long modified;
+        String sha1;
+
+        Verified(long size, long modified, String sha1) {
+            this.size = size;
+            this.modified = modified;
+            this.sha1 = sha1;
+        }
+    }
+
+    /** Devuelve la lista de problemas encontrados (vacía si todo está bien). */
+    public static List<Problem> verify(List<LaunchPlan.Library> libraries, Path cacheFile) throws IOException {
+        try (Metrics.Span span = Metrics.span(Metrics.LIBRARIES_VERIFY, libraries.size() + " librerías")) {
+            List<Problem> problems = verifyAll(libraries, cacheFile);
+            if (!problems.isEmpty()) span.failed();
+            Metrics.count("verify.problems", problems.size());
+            return problems;
+        }
+    }
+
+    private static List<Problem> verifyAll(List<LaunchPlan.Library> libraries, Path cacheFile) throws IOException {
+        Map<String, Verified> cache = new ConcurrentHashMap<>(loadCache(cacheFile));
+        List<Problem> problems = new ArrayList<>();
+        Semaphore reads = new Semaphore(MAX_PARALLEL_READS);
+        AtomicInteger hashed = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<LaunchPlan.Library, Future<String>> results = new LinkedHashMap<>();
+            for (LaunchPlan.Library lib : libraries) {
+                results.put(lib, executor.submit(() -> check(lib, cache, reads, hashed)));
+            }
+            for (Map.Entry<LaunchPlan.Library, Future<String>> result : results.entrySet()) {
+                try {
+                    String reason = result.getValue().get();
+                    if (reason != null) problems.add(new Problem(result.getKey(), reason));
+                } catch (ExecutionException e) {
+                    problems.add(new Problem(result.getKey(), "No se pudo leer (" + e.getCause().getMessage() + ")"));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Verificación interrumpida");
+                }
+            }
+        }
+
+        // Solo se reescribe la caché si algo se hasheó de nuevo
+        if (hashed.get() > 0) {
+            saveCache(cacheFile, cache);
+        }
+        Metrics.count("verify.rehashed", hashed.get());
+        System.out.println("[Launcher] Librerías verificadas: " + libraries.size() + " (" + hashed.get() + " re-hasheadas)");
+        return problems;
+    }
+
+    // Devuelve el motivo del problema, o null si la librería está bien
+    private static String check(LaunchPlan.Library lib, Map<String, Verified> cache, Semaphore reads, AtomicInteger hashed)
+            throws IOException, InterruptedException {
+        Path path = Paths.get(lib.path);
+        if (!Files.exists(path)) {
+            cache.remove(lib.path);
+            return "Falta";
+        }
+        if (lib.sha1 == null) return null; // Sin hash publicado: alcanza con que exista
+
+        long size = Files.size(path);
+        if (lib.size >= 0 && size != lib.size) {
+            cache.remove(lib.path);
+            return "Tamaño incorrecto (" + size + " en lugar de " + lib.size + ")";
+        }
+
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        Verified known = cache.get(lib.path);
+        if (known != null && known.size == size && known.modified == modified && lib.sha1.equalsIgnoreCase(known.sha1)) {
+            return null;
+        }
+
+        String sha1;
+        reads.acquire();
+        try {
+            sha1 = Hashes.sha1(path);
+        } finally {
+            reads.release();
+        }
+        hashed.incrementAndGet();
+
+        if (!sha1.equalsIgnoreCase(lib.sha1)) {
+            cache.remove(lib.path);
+            return "sha1 no coincide";
+        }
+        cache.put(lib.path, new Verified(size, modified, sha1));
+        return null;
+    }
+
+    private static Map<String, Verified> loadCache(Path cacheFile) {
+        if (!Files.exists(cacheFile)) return Map.of();
+        try (Reader reader = Files.newBufferedReader(cacheFile)) {
+            Map<String, Verified> cache = GSON.fromJson(reader, new TypeToken<Map<String, Verified>>() {}.getType());
+            return cache != null ? cache : Map.of();
+        } catch (IOException | JsonParseException e) {
+            System.out.println("AVISO: Caché de verificación ilegible, se verifica todo de nuevo: " + e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private static void saveCache(Path cacheFile, Map<String, Verified> cache) throws IOException {
+        AtomicFiles.write(cacheFile, tmp -> {
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                GSON.toJson(new TreeMap<>(cache), writer);
+            }
+        });
+    }
+}
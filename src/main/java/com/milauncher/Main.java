@@ -3,6 +3,7 @@ package com.milauncher;
 public class Main {
     public static void main(String[] args) {
         // Esta clase es necesaria para el Fat JAR
+        StartupTimings.mark("main");
         Launcher.main(args);
     }
 }
\ No newline at end of file
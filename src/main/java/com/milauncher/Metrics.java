@@ -0,0 +1,200 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import jdk.jfr.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mediciones del launcher: cada fase (chequeo de versión del pack, extracción, carga de JSON, classpath,
+ * verificación, descargas, arranque del proceso) se mide con un {@link Span}, que emite un evento de
+ * JDK Flight Recorder y suma a un histograma. Al terminar cada corrida se escribe un resumen en
+ * launcher_metrics.json dentro de la carpeta del launcher, para diagnosticar lanzamientos lentos.
+ * Para ver también los eventos uno por uno: -XX:StartFlightRecording=filename=launcher.jfr
+ */
+public class Metrics {
+
+    public static final String FILE_NAME = "launcher_metrics.json";
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    // Nombres de las fases
+    public static final String PACK_CHECK = "pack.check";
+    public static final String PACK_STAGE = "pack.stage";
+    public static final String PACK_SWAP = "pack.swap";
+    public static final String EXTRACT_ENTRY = "extract.entry";
+    public static final String EXTRACT_BLOCK = "extract.block";
+    public static final String JSON_LOAD = "json.load";
+    public static final String CLASSPATH_BUILD = "classpath.build";
+    public static final String LIBRARIES_VERIFY = "libraries.verify";
+    public static final String DOWNLOAD_SEGMENT = "download.segment";
+    public static final String DOWNLOAD_FILE = "download.file";
+    public static final String PROCESS_SPAWN = "process.spawn";
+
+    @Name("glauncher.Phase")
+    @Label("Fase del launcher")
+    @Category("GLauncher")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Fase")
+        String phase;
+
+        @Label("Detalle")
+        String detail;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+
+        @Label("Correcto")
+        boolean ok;
+    }
+
+    // Histograma sin locks: cubetas por potencia de 2 en microsegundos
+    static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos, long byteCount, boolean ok) {
+            count.increment();
+            totalNanos.add(nanos);
+            bytes.add(byteCount);
+            if (!ok) failures.increment();
+            min.accumulate(nanos);
+            max.accumulate(nanos);
+            long micros = Math.max(1, nanos / 1000);
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+        }
+
+        // Límite superior de la cubeta donde cae el percentil (aproximado, en ms)
+        double percentileMs(double p) {
+            long total = count.sum();
+            if (total == 0) return 0;
+            long target = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) return Math.min((1L << (i + 1)) / 1000.0, max.get() / 1e6);
+            }
+            return max.get() / 1e6;
+        }
+    }
+
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final String STARTED_AT = Instant.now().toString();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(Metrics::writeSummary, "metrics-summary"));
+    }
+
+    /** Medición de una fase; se cierra con try-with-resources. */
+    public static final class Span implements AutoCloseable {
+        private final String phase;
+        private final PhaseEvent event = new PhaseEvent();
+        private final long start = System.nanoTime();
+        private long bytes;
+        private boolean ok = true;
+
+        private Span(String phase, String detail) {
+            this.phase = phase;
+            event.begin();
+            event.phase = phase;
+            event.detail = detail;
+        }
+
+        public Span bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        /** Marca la fase como fallida (si no se llama, se cuenta como correcta). */
+        public void failed() {
+            ok = false;
+        }
+
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - start;
+            event.end();
+            if (event.shouldCommit()) {
+                event.bytes = bytes;
+                event.ok = ok;
+                event.commit();
+            }
+            histograms.computeIfAbsent(phase, k -> new Histogram()).record(elapsed, bytes, ok);
+        }
+    }
+
+    public static Span span(String phase, String detail) {
+        return new Span(phase, detail);
+    }
+
+    public static void count(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    public static void count(String name) {
+        count(name, 1);
+    }
+
+    /** Escribe el resumen de esta corrida (se llama tras lanzar el juego y al cerrar el launcher). */
+    public static synchronized void writeSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("startedAt", STARTED_AT);
+        summary.put("writtenAt", Instant.now().toString());
+        summary.put("java", System.getProperty("java.version") + " (" + System.getProperty("java.vendor") + ")");
+        summary.put("os", System.getProperty("os.name") + " " + System.getProperty("os.version") + " "
+                + System.getProperty("os.arch"));
+        summary.put("cpus", Runtime.getRuntime().availableProcessors());
+        summary.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        summary.put("startupMs", StartupTimings.snapshot());
+
+        Map<String, Object> phases = new TreeMap<>();
+        histograms.forEach((name, h) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            long n = h.count.sum();
+            stats.put("count", n);
+            stats.put("failures", h.failures.sum());
+            stats.put("totalMs", round(h.totalNanos.sum() / 1e6));
+            stats.put("minMs", round(h.min.get() / 1e6));
+            stats.put("p50Ms", round(h.percentileMs(0.50)));
+            stats.put("p95Ms", round(h.percentileMs(0.95)));
+            stats.put("maxMs", round(h.max.get() / 1e6));
+            if (h.bytes.sum() > 0) stats.put("bytes", h.bytes.sum());
+            phases.put(name, stats);
+        });
+        summary.put("phases", phases);
+
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, c) -> counterValues.put(name, c.sum()));
+        summary.put("counters", counterValues);
+
+        try {
+            Path file = FileManager.getMinecraftDir().resolve(FILE_NAME);
+            Files.createDirectories(file.getParent());
+            AtomicFiles.writeString(file, GSON.toJson(summary));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo guardar el resumen de métricas: " + e.getMessage());
+        }
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 100) / 100.0;
+    }
+}
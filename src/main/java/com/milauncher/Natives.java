@@ -0,0 +1,173 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Librerías nativas (DLL/.so/.dylib) del juego. Se extraen solo los jars de natives que corresponden
+ * al sistema operativo y arquitectura actuales a versions/<id>/natives, y java.library.path apunta ahí
+ * en vez de a toda la carpeta libraries. Un marcador guarda la suma de los jars extraídos: si no cambió
+ * y los archivos siguen en su lugar, los lanzamientos siguientes no extraen nada.
+ */
+public class Natives {
+
+    private static final String MARKER = ".natives.json";
+    private static final Gson GSON = new Gson();
+
+    private static class Marker {
+        String key;
+        Map<String, Long> files = new TreeMap<>(); // nombre -> tamaño
+    }
+
+    public static Path directory(Path root, String versionName) {
+        return root.resolve("versions").resolve(versionName).resolve("natives");
+    }
+
+    /**
+     * Jars de natives que aplican a este equipo, en los dos formatos de JSON:
+     * nuevo ("group:artifact:version:natives-windows" con reglas) y viejo ("natives" + "classifiers").
+     */
+    static List<LaunchPlan.Library> select(VersionJson version, Path root) {
+        List<LaunchPlan.Library> out = new ArrayList<>();
+
+        for (VersionJson.Library compiled : version.libraries) {
+            JsonObject lib = compiled.json();
+            if (!compiled.rules().allows(Map.of()) || !lib.has("downloads")) continue;
+            JsonObject downloads = lib.getAsJsonObject("downloads");
+
+            String name = lib.has("name") ? lib.get("name").getAsString() : "";
+            String[] parts = name.split(":");
+            if (parts.length >= 4 && parts[3].startsWith("natives-") && downloads.has("artifact")) {
+                if (matchesArch(parts[3])) out.add(library(downloads.getAsJsonObject("artifact"), root));
+            } else if (lib.has("natives") && downloads.has("classifiers")) {
+                JsonObject natives = lib.getAsJsonObject("natives");
+                if (!natives.has(Rules.OS_NAME)) continue;
+                String classifier = natives.get(Rules.OS_NAME).getAsString()
+                        .replace("${arch}", Rules.OS_ARCH.equals("x86") ? "32" : "64");
+                JsonObject classifiers = downloads.getAsJsonObject("classifiers");
+                if (classifiers.has(classifier)) out.add(library(classifiers.getAsJsonObject(classifier), root));
+            }
+        }
+        return out;
+    }
+
+    // "natives-windows" es x86_64; las otras arquitecturas llevan sufijo (-x86, -arm64, -aarch_64)
+    static boolean matchesArch(String classifier) {
+        String arch;
+        if (classifier.endsWith("-x86")) arch = "x86";
+        else if (classifier.endsWith("-arm64") || classifier.endsWith("-aarch_64")) arch = "arm64";
+        else arch = "x86_64";
+        return arch.equals(Rules.OS_ARCH);
+    }
+
+    private static LaunchPlan.Library library(JsonObject artifact, Path root) {
+        String path = root.resolve("libraries").resolve(artifact.get("path").getAsString()).toString();
+        return new LaunchPlan.Library(path,
+                artifact.has("sha1") ? artifact.get("sha1").getAsString() : null,
+                artifact.has("size") ? artifact.get("size").getAsLong() : -1,
+                artifact.has("url") ? artifact.get("url").getAsString() : null);
+    }
+
+    /** Deja en 'dir' las librerías nativas de 'jars'; no hace nada si ya están y los jars no cambiaron. */
+    public static void stage(List<LaunchPlan.Library> jars, Path dir) throws IOException {
+        try (Metrics.Span span = Metrics.span("natives.stage", dir.toString())) {
+            String key = key(jars);
+            Path markerFile = dir.resolve(MARKER);
+            Marker marker = loadMarker(markerFile);
+            if (marker != null && key.equals(marker.key) && allPresent(dir, marker)) {
+                Metrics.count("natives.cached");
+                return;
+            }
+
+            // Se vuelve a armar la carpeta desde cero para no dejar natives de otra versión
+            deleteContents(dir);
+            Files.createDirectories(dir);
+            Marker fresh = new Marker();
+            fresh.key = key;
+            long bytes = 0;
+            for (LaunchPlan.Library jar : jars) {
+                bytes += extract(Paths.get(jar.path), dir, fresh);
+            }
+            span.bytes(bytes);
+
+            AtomicFiles.writeString(markerFile, GSON.toJson(fresh));
+            System.out.println("[Launcher] Natives extraídas: " + fresh.files.size() + " archivos en " + dir);
+        }
+    }
+
+    // Suma de lo que determina el contenido: sha1 publicado de cada jar, o su tamaño y fecha si no hay
+    private static String key(List<LaunchPlan.Library> jars) throws IOException {
+        StringBuilder sb = new StringBuilder(Rules.OS_NAME).append('-').append(Rules.OS_ARCH).append('\n');
+        for (LaunchPlan.Library jar : jars) {
+            sb.append(jar.path).append('=');
+            if (jar.sha1 != null) {
+                sb.append(jar.sha1);
+            } else {
+                Path p = Paths.get(jar.path);
+                sb.append(Files.size(p)).append('@').append(Files.getLastModifiedTime(p).toMillis());
+            }
+            sb.append('\n');
+        }
+        return Hashes.sha256(sb.toString());
+    }
+
+    // Solo las librerías en sí, aplanadas (los jars de LWJGL 3 las guardan en subcarpetas por arquitectura)
+    private static long extract(Path jar, Path dir, Marker marker) throws IOException {
+        long bytes = 0;
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || entry.getName().startsWith("META-INF/") || !isNativeLibrary(entry.getName())) {
+                    continue;
+                }
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                Path target = dir.resolve(fileName);
+                try (InputStream in = zip.getInputStream(entry)) {
+                    Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                marker.files.put(fileName, entry.getSize());
+                bytes += entry.getSize();
+            }
+        }
+        return bytes;
+    }
+
+    static boolean isNativeLibrary(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".dll") || lower.endsWith(".so") || lower.endsWith(".dylib") || lower.endsWith(".jnilib");
+    }
+
+    private static boolean allPresent(Path dir, Marker marker) throws IOException {
+        for (Map.Entry<String, Long> file : marker.files.entrySet()) {
+            Path p = dir.resolve(file.getKey());
+            if (!Files.exists(p) || Files.size(p) != file.getValue()) return false;
+        }
+        return true;
+    }
+
+    private static Marker loadMarker(Path file) {
+        if (!Files.exists(file)) return null;
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return GSON.fromJson(reader, Marker.class);
+        } catch (IOException | JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static void deleteContents(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) Files.delete(file);
+            }
+        }
+    }
+}
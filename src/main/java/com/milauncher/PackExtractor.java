@@ -0,0 +1,395 @@
+package com.milauncher;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Motor de extracción paralela del paquete.
+ * Lee el directorio central del ZIP (acceso aleatorio) y descomprime las entradas
+ * en un pool de hilos acotado, en lugar de recorrer el archivo con un único ZipInputStream.
+ * Si hay un manifiesto de la instalación anterior, solo escribe lo que cambió.
+ */
+public class PackExtractor {
+
+    // Limite de hilos: mas alla de 8 el disco suele ser el cuello de botella
+    private static final int MAX_WORKERS = 8;
+
+    // Las regiones mapeadas se recorren por partes para no ocupar demasiado espacio de direcciones
+    private static final long MAP_CHUNK = 64L * 1024 * 1024;
+
+    // Buffers para entradas comprimidas: crecen según la entrada más grande que vio cada hilo
+    private static final int MIN_BUFFER = 8 * 1024;
+    private static final int MAX_BUFFER = 256 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[MIN_BUFFER]);
+
+    /**
+     * Extrae el paquete en 'dest' comparando contra 'previous' (puede ser null para instalar todo).
+     * Las entradas compartibles pasan por 'store' (puede ser null para escribir copias normales).
+     * Devuelve el manifiesto de lo que quedó instalado.
+     */
+    public static PackManifest extract(Path zipPath, Path dest, PackManifest previous, String packVersion,
+                                       BlobStore store, ProgressReporter progress) throws IOException {
+        return extract(zipPath, dest, null, previous, packVersion, store, true, progress);
+    }
+
+    /**
+     * Igual, para el paquete de una instancia: libraries/, assets/ y versions/ van a 'dest' (la raíz común)
+     * y el resto a 'gameDir' (la carpeta de la instancia, o el árbol de staging mientras se prepara una
+     * actualización). Con 'pruneShared' en false no se borra nada de la raíz común que el paquete haya
+     * dejado de traer, porque otra instancia puede estar usándolo.
+     */
+    public static PackManifest extract(Path zipPath, Path dest, Path gameDir, PackManifest previous, String packVersion,
+                                       BlobStore store, boolean pruneShared, ProgressReporter progress) throws IOException {
+        if (GlPack.isGlPack(zipPath)) {
+            return extractGlPack(zipPath, dest, gameDir, previous, packVersion, store, pruneShared, progress);
+        }
+        PackManifest manifest = new PackManifest(packVersion);
+
+        try (ZipFile zip = new ZipFile(zipPath.toFile());
+             FileChannel zipChannel = FileChannel.open(zipPath, StandardOpenOption.READ)) {
+            ZipIndex index = new ZipIndex(zipChannel);
+            List<ZipEntry> toWrite = new ArrayList<>();
+            // Entradas cuyo tamaño + CRC coincide con un blob del store; se confirman por SHA-256 al extraer
+            Map<ZipEntry, String> candidates = new HashMap<>();
+            long totalSize = 0;
+            int unchanged = 0;
+
+            // 1. Crear directorios primero (en un solo hilo) y decidir qué archivos hay que escribir
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                Path newPath = target(dest, gameDir, entry.getName());
+
+                if (entry.isDirectory()) {
+                    Files.createDirectories(newPath);
+                    continue;
+                }
+                if (FileManager.isProtected(newPath)) {
+                    System.out.println("Saltando archivo protegido: " + newPath.getFileName());
+                    continue;
+                }
+
+                PackManifest.Entry old = previous != null ? previous.get(entry.getName()) : null;
+                if (isUnchanged(old, entry, newPath)) {
+                    manifest.put(entry.getName(), old);
+                    unchanged++;
+                    continue;
+                }
+
+                // Contenido que quizás ya está en el store (de otra versión u otra ruta)
+                if (store != null && BlobStore.isShared(entry.getName())) {
+                    String known = store.find(entry.getSize(), entry.getCrc());
+                    if (known != null) candidates.put(entry, known);
+                }
+                toWrite.add(entry);
+                totalSize += Math.max(entry.getSize(), 0);
+            }
+
+            // 2. Extraer en paralelo. El progreso se mide en bytes descomprimidos sumados entre todos los hilos
+            progress.setTotal(totalSize);
+            int workers = Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "pack-extractor");
+                t.setDaemon(true);
+                return t;
+            });
+
+            AtomicInteger reused = new AtomicInteger();
+            try {
+                List<Future<?>> tasks = new ArrayList<>(toWrite.size());
+                for (ZipEntry entry : toWrite) {
+                    tasks.add(pool.submit(() -> {
+                        Path target = target(dest, gameDir, entry.getName());
+                        String known = candidates.get(entry);
+                        if (known != null && known.equals(hashEntry(zip, entry, progress))) {
+                            // Mismo contenido que el blob: basta con enlazarlo
+                            store.materialize(known, target);
+                            manifest.put(entry.getName(), new PackManifest.Entry(entry.getSize(), entry.getCrc(), known));
+                            reused.incrementAndGet();
+                            return null;
+                        }
+                        if (known != null) {
+                            // Mismo tamaño y CRC pero otro contenido: se extrae, y lo ya leído no cuenta dos veces
+                            progress.add(-entry.getSize());
+                        }
+                        boolean shared = store != null && BlobStore.isShared(entry.getName());
+                        Path out = shared ? store.newTempFile() : target;
+
+                        String sha = extractEntry(zip, index, zipChannel, entry, out, progress);
+                        if (shared) {
+                            store.add(out, entry.getSize(), entry.getCrc(), sha);
+                            store.materialize(sha, target);
+                        }
+                        manifest.put(entry.getName(), new PackManifest.Entry(entry.getSize(), entry.getCrc(), sha));
+                        return null;
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Extracción interrumpida");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException io) throw io;
+                throw new IOException("Error extrayendo el paquete", cause);
+            } finally {
+                shutdown(pool);
+            }
+
+            Metrics.count("extract.unchanged", unchanged);
+            Metrics.count("extract.reusedFromStore", reused.get());
+            Metrics.count("extract.written", toWrite.size() - reused.get());
+            Metrics.count("extract.storeMismatch", candidates.size() - reused.get());
+            if (previous != null || reused.get() > 0) {
+                System.out.println("Actualización incremental: " + (toWrite.size() - reused.get()) + " archivos extraídos, "
+                        + unchanged + " sin cambios, " + reused.get() + " reutilizados del store.");
+            }
+
+            // 3. Borrar solo los archivos que el paquete anterior tenía y el nuevo ya no
+            deleteStale(dest, gameDir, previous, manifest, pruneShared);
+
+            if (store != null) {
+                store.saveIndex();
+            }
+            progress.complete();
+        }
+        return manifest;
+    }
+
+    /**
+     * Lo mismo para un paquete .glpack: el índice ya trae el SHA-256 de cada archivo, así que lo que no
+     * cambió o ya está en el store se reconoce sin leer nada más, y el resto se extrae en paralelo por bloque.
+     */
+    private static PackManifest extractGlPack(Path packPath, Path dest, Path gameDir, PackManifest previous,
+                                              String packVersion, BlobStore store, boolean pruneShared,
+                                              ProgressReporter progress) throws IOException {
+        PackManifest manifest = new PackManifest(packVersion);
+
+        try (GlPack pack = GlPack.open(packPath)) {
+            List<GlPack.Entry> toWrite = new ArrayList<>();
+            long totalSize = 0;
+            int unchanged = 0;
+            int reused = 0;
+
+            for (GlPack.Entry entry : pack.entries()) {
+                Path newPath = target(dest, gameDir, entry.path());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(newPath);
+                    continue;
+                }
+                if (FileManager.isProtected(newPath)) {
+                    System.out.println("Saltando archivo protegido: " + newPath.getFileName());
+                    continue;
+                }
+
+                // Sin CRC en este formato: se compara por hash
+                PackManifest.Entry old = previous != null ? previous.get(entry.path()) : null;
+                if (old != null && old.size == entry.size() && entry.sha256().equals(old.sha256)
+                        && Files.exists(newPath) && Files.size(newPath) == entry.size()) {
+                    manifest.put(entry.path(), old);
+                    unchanged++;
+                    continue;
+                }
+
+                if (store != null && BlobStore.isShared(entry.path()) && store.contains(entry.sha256(), entry.size())) {
+                    store.materialize(entry.sha256(), newPath);
+                    manifest.put(entry.path(), new PackManifest.Entry(entry.size(), 0, entry.sha256()));
+                    reused++;
+                    continue;
+                }
+                toWrite.add(entry);
+                totalSize += entry.size();
+            }
+
+            Metrics.count("extract.unchanged", unchanged);
+            Metrics.count("extract.reusedFromStore", reused);
+            Metrics.count("extract.written", toWrite.size());
+            if (previous != null || reused > 0) {
+                System.out.println("Actualización incremental: " + toWrite.size() + " archivos a extraer, "
+                        + unchanged + " sin cambios, " + reused + " reutilizados del store.");
+            }
+
+            progress.setTotal(totalSize);
+            int workers = Math.max(1, Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()));
+            pack.extract(toWrite, new GlPack.Sink() {
+                @Override
+                public Path target(GlPack.Entry entry) throws IOException {
+                    boolean shared = store != null && BlobStore.isShared(entry.path());
+                    return shared ? store.newTempFile() : PackExtractor.target(dest, gameDir, entry.path());
+                }
+
+                @Override
+                public void done(GlPack.Entry entry, Path written) throws IOException {
+                    if (store != null && BlobStore.isShared(entry.path())) {
+                        store.add(written, entry.sha256());
+                        store.materialize(entry.sha256(), PackExtractor.target(dest, gameDir, entry.path()));
+                    }
+                    manifest.put(entry.path(), new PackManifest.Entry(entry.size(), 0, entry.sha256()));
+                }
+            }, progress, workers);
+
+            deleteStale(dest, gameDir, previous, manifest, pruneShared);
+
+            if (store != null) {
+                store.saveIndex();
+            }
+            progress.complete();
+        }
+        return manifest;
+    }
+
+    /**
+     * Corta el pool y espera a que sus hilos terminen. Si la extracción se canceló, quien llama puede
+     * borrar la carpeta destino enseguida (PackStager rehace .staging), y no debe quedar un hilo escribiendo.
+     */
+    static void shutdown(ExecutorService pool) {
+        pool.shutdownNow();
+        // La espera no se corta aunque este hilo venga interrumpido; la interrupción se restaura al final
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    if (pool.awaitTermination(10, TimeUnit.SECONDS)) break;
+                    System.out.println("AVISO: Esperando que terminen los hilos de extracción...");
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void deleteStale(Path dest, Path gameDir, PackManifest previous, PackManifest manifest,
+                                    boolean pruneShared) throws IOException {
+        if (previous == null) return;
+        for (String oldPath : previous.getFiles().keySet()) {
+            if (manifest.get(oldPath) != null) continue;
+            if (!pruneShared && Instance.isSharedEntry(oldPath)) continue;
+            Path stale = target(dest, gameDir, oldPath);
+            if (!FileManager.isProtected(stale) && Files.deleteIfExists(stale)) {
+                System.out.println("Eliminado (ya no está en el paquete): " + oldPath);
+            }
+        }
+    }
+
+    // Sin cambios si el tamaño y el CRC coinciden con lo instalado y el archivo sigue en disco
+    private static boolean isUnchanged(PackManifest.Entry old, ZipEntry entry, Path path) throws IOException {
+        if (old == null || old.size != entry.getSize() || old.crc != entry.getCrc()) return false;
+        return Files.exists(path) && Files.size(path) == old.size;
+    }
+
+    // SHA-256 de una entrada sin escribirla, para confirmar un candidato del store
+    private static String hashEntry(ZipFile zip, ZipEntry entry, ProgressReporter progress) throws IOException {
+        MessageDigest digest = Hashes.sha256();
+        byte[] buffer = buffer(entry.getSize());
+        try (InputStream in = zip.getInputStream(entry)) {
+            int len;
+            while ((len = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                digest.update(buffer, 0, len);
+                progress.add(len);
+            }
+        }
+        return Hashes.hex(digest.digest());
+    }
+
+    private static String extractEntry(ZipFile zip, ZipIndex index, FileChannel zipChannel, ZipEntry entry,
+                                       Path newPath, ProgressReporter progress) throws IOException {
+        try (Metrics.Span span = Metrics.span(Metrics.EXTRACT_ENTRY, entry.getName()).bytes(entry.getSize())) {
+            try {
+                return writeEntry(zip, index, zipChannel, entry, newPath, progress);
+            } catch (IOException | RuntimeException e) {
+                span.failed();
+                throw e;
+            }
+        }
+    }
+
+    private static String writeEntry(ZipFile zip, ZipIndex index, FileChannel zipChannel, ZipEntry entry,
+                                     Path newPath, ProgressReporter progress) throws IOException {
+        Files.createDirectories(newPath.getParent());
+        // Si el destino era un enlace duro al store, lo cortamos antes de escribir para no modificar el blob
+        Files.deleteIfExists(newPath);
+        MessageDigest digest = Hashes.sha256();
+
+        // Reservamos el tamaño final de una vez (el directorio central ya lo conoce) para evitar fragmentación
+        try (RandomAccessFile out = new RandomAccessFile(newPath.toFile(), "rw")) {
+            out.setLength(entry.getSize());
+
+            long dataOffset = entry.getMethod() == ZipEntry.STORED ? index.dataOffset(entry.getName()) : -1;
+            if (dataOffset >= 0) {
+                copyStored(zipChannel, dataOffset, entry.getSize(), out.getChannel(), digest, progress);
+            } else {
+                copyCompressed(zip, entry, out, digest, progress);
+            }
+        }
+        return Hashes.hex(digest.digest());
+    }
+
+    // Entradas sin comprimir (jars, PNG, OGG): se mapea la región del ZIP y se escribe directo al canal
+    // de salida, sin copiar al heap. El hash se calcula sobre la misma región mapeada.
+    private static void copyStored(FileChannel zipChannel, long offset, long size, FileChannel out,
+                                   MessageDigest digest, ProgressReporter progress) throws IOException {
+        long copied = 0;
+        while (copied < size) {
+            long chunk = Math.min(MAP_CHUNK, size - copied);
+            MappedByteBuffer region = zipChannel.map(FileChannel.MapMode.READ_ONLY, offset + copied, chunk);
+            digest.update(region.duplicate());
+            while (region.hasRemaining()) {
+                out.write(region, copied + region.position());
+            }
+            copied += chunk;
+            progress.add(chunk);
+        }
+    }
+
+    // Entradas comprimidas: buffer reutilizable por hilo, dimensionado según el tamaño de la entrada
+    private static void copyCompressed(ZipFile zip, ZipEntry entry, RandomAccessFile out,
+                                       MessageDigest digest, ProgressReporter progress) throws IOException {
+        byte[] buffer = buffer(entry.getSize());
+        try (InputStream in = zip.getInputStream(entry)) {
+            int len;
+            while ((len = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                digest.update(buffer, 0, len);
+                out.write(buffer, 0, len);
+                progress.add(len);
+            }
+        }
+    }
+
+    private static byte[] buffer(long entrySize) {
+        int wanted = (int) Math.min(MAX_BUFFER, Math.max(MIN_BUFFER, Long.highestOneBit(Math.max(entrySize, 1)) << 1));
+        byte[] buffer = BUFFERS.get();
+        if (buffer.length < wanted) {
+            buffer = new byte[wanted];
+            BUFFERS.set(buffer);
+        }
+        return buffer;
+    }
+
+    // Sin 'gameDir' todo va a 'dest'; con 'gameDir' solo lo común (libraries/, assets/, versions/)
+    private static Path target(Path dest, Path gameDir, String name) throws IOException {
+        if (gameDir == null) return resolveSafe(dest, name);
+        return resolveSafe(Instance.isSharedEntry(name) ? dest : gameDir, name);
+    }
+
+    // Evita que una entrada con "../" escriba fuera de la carpeta destino
+    static Path resolveSafe(Path dest, String name) throws IOException {
+        Path base = dest.toAbsolutePath().normalize();
+        Path resolved = base.resolve(name).normalize();
+        if (!resolved.startsWith(base)) {
+            throw new IOException("Entrada fuera del directorio destino: " + name);
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,82 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Manifiesto de los archivos instalados desde el paquete: ruta, tamaño y SHA-256 de cada uno.
+ * Se guarda junto a pack_version.txt y permite actualizar solo lo que cambió entre versiones.
+ */
+public class PackManifest {
+
+    public static final String FILE_NAME = "pack_manifest.json";
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    public static class Entry {
+        long size;
+        long crc;      // CRC32 del directorio central del ZIP, para comparar sin descomprimir (0 en .glpack: se compara el sha256)
+        String sha256;
+
+        Entry(long size, long crc, String sha256) {
+            this.size = size;
+            this.crc = crc;
+            this.sha256 = sha256;
+        }
+    }
+
+    private String packVersion;
+    private Map<String, Entry> files = new TreeMap<>();
+
+    public PackManifest(String packVersion) {
+        this.packVersion = packVersion;
+    }
+
+    public static Path pathIn(Path dir) {
+        return dir.resolve(FILE_NAME);
+    }
+
+    // Devuelve null si no existe o está corrupto (en ese caso se hace una instalación completa)
+    public static PackManifest load(Path file) {
+        if (!Files.exists(file)) return null;
+        try (Reader reader = Files.newBufferedReader(file)) {
+            PackManifest manifest = GSON.fromJson(reader, PackManifest.class);
+            if (manifest == null || manifest.files == null) return null;
+            return manifest;
+        } catch (IOException | JsonParseException e) {
+            System.out.println("AVISO: Manifiesto del paquete ilegible, se reinstalará completo: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        // Escribimos en un temporal y lo movemos, para no dejar un manifiesto a medias
+        AtomicFiles.write(file, tmp -> {
+            try (Writer writer = Files.newBufferedWriter(tmp)) {
+                GSON.toJson(this, writer);
+            }
+        });
+    }
+
+    public String getPackVersion() {
+        return packVersion;
+    }
+
+    public Entry get(String path) {
+        return files.get(path);
+    }
+
+    public Map<String, Entry> getFiles() {
+        return files;
+    }
+
+    synchronized void put(String path, Entry entry) {
+        files.put(path, entry);
+    }
+}
@@ -0,0 +1,325 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Instalación en dos tiempos (doble buffer). La nueva versión del paquete se arma en .staging dentro de
+ * la carpeta de la instancia mientras la versión actual sigue jugable: se enlaza lo instalado (enlaces
+ * duros, no ocupa espacio) y el extractor escribe encima solo lo que cambió. Después, el cambio es
+ * mover carpetas: las de la versión actual se apartan a .old, las preparadas toman su lugar y se
+ * actualizan el manifiesto y pack_version.txt. Lo apartado se borra en segundo plano.
+ *
+ * Antes de mover nada se escribe un diario (.swap.json) con lo que hay que mover; si el launcher se
+ * corta a mitad, la próxima vez se termina el cambio en lugar de quedar una instalación mezclada.
+ * libraries/, assets/ y versions/ se extraen directo a la raíz común: sus rutas llevan la versión, así
+ * que agregar lo nuevo no molesta a la versión instalada. Lo que el paquete deja de usar ahí se borra
+ * recién después del cambio.
+ */
+public class PackStager {
+
+    static final String STAGING_DIR = ".staging";
+    static final String OLD_DIR = ".old";
+    private static final String JOURNAL = ".swap.json";
+    private static final String READY_FILE = ".ready";
+
+    private static final Gson GSON = new Gson();
+
+    // Lo que se mueve en el cambio; se guarda antes de empezar para poder terminarlo si se corta
+    private static class Journal {
+        String packVersion;
+        long stamp;
+        List<String> dirs = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        List<String> staleFiles = new ArrayList<>();
+    }
+
+    private static Thread cleanup;
+
+    /** Si ya hay preparada en .staging la versión que espera la instancia. */
+    public static boolean isStaged(Path root, Instance instance) {
+        Path ready = instance.gameDir(root).resolve(STAGING_DIR).resolve(READY_FILE);
+        try {
+            return Files.exists(ready) && Files.readString(ready).trim().equals(instance.packVersion);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Arma la versión del paquete de la instancia en .staging sin tocar la instalación actual.
+     * Si ya estaba preparada no hace nada; si quedó a medias (o es de otra versión) se rehace.
+     */
+    public static synchronized void stage(Path root, Instance instance, ProgressReporter progress) throws IOException {
+        recover(root, instance);
+        Path gameDir = instance.gameDir(root);
+        Path staging = gameDir.resolve(STAGING_DIR);
+        if (isStaged(root, instance)) {
+            System.out.println("[Launcher] La versión " + instance.packVersion + " ya estaba preparada.");
+            progress.complete();
+            return;
+        }
+
+        try (Metrics.Span span = Metrics.span(Metrics.PACK_STAGE, instance.id() + " " + instance.packVersion)) {
+            try {
+                deleteTree(staging);
+                Files.createDirectories(staging);
+                PackManifest previous = PackManifest.load(PackManifest.pathIn(gameDir));
+                if (previous != null) {
+                    seed(gameDir, staging, previous);
+                }
+
+                // Lo común no se poda acá: la versión actual todavía lo usa
+                PackManifest manifest = PackExtractor.extract(instance.packFile(), root, staging, previous,
+                        instance.packVersion, BlobStore.open(root.resolve("store")), false, progress);
+                manifest.save(PackManifest.pathIn(staging));
+                AtomicFiles.writeString(staging.resolve(READY_FILE), instance.packVersion);
+                System.out.println("[Launcher] Versión " + instance.packVersion + " de " + instance + " preparada.");
+            } catch (IOException | RuntimeException e) {
+                span.failed();
+                // Queda sin .ready: la próxima vez se rehace desde cero
+                Metrics.count("pack.stageFailed");
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Pone en uso la versión preparada por 'stage'. Los archivos del usuario que aparecieron dentro de
+     * las carpetas del paquete (configs que genera un mod, etc.) pasan a la nueva versión; los
+     * protegidos (options.txt, ...) se conservan siempre.
+     */
+    public static synchronized void swap(Path root, Instance instance) throws IOException {
+        recover(root, instance);
+        Path gameDir = instance.gameDir(root);
+        Path staging = gameDir.resolve(STAGING_DIR);
+        if (!isStaged(root, instance)) {
+            throw new IOException("No hay una versión preparada de " + instance + " para instalar.");
+        }
+
+        try (Metrics.Span span = Metrics.span(Metrics.PACK_SWAP, instance.id() + " " + instance.packVersion)) {
+            try {
+                PackManifest previous = PackManifest.load(PackManifest.pathIn(gameDir));
+                PackManifest next = PackManifest.load(PackManifest.pathIn(staging));
+                if (next == null) {
+                    throw new IOException("Manifiesto de la versión preparada ilegible.");
+                }
+
+                Journal journal = new Journal();
+                journal.packVersion = instance.packVersion;
+                journal.stamp = System.currentTimeMillis();
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(staging)) {
+                    for (Path entry : entries) {
+                        String name = entry.getFileName().toString();
+                        if (name.equals(READY_FILE) || name.equals(PackManifest.FILE_NAME)) continue;
+                        if (Files.isDirectory(entry)) journal.dirs.add(name);
+                        else journal.files.add(name);
+                    }
+                }
+                if (previous != null) {
+                    for (String name : previous.getFiles().keySet()) {
+                        if (name.indexOf('/') < 0 && next.get(name) == null) journal.staleFiles.add(name);
+                    }
+                }
+
+                for (String dir : journal.dirs) {
+                    carryOver(gameDir, staging, dir, previous);
+                }
+
+                AtomicFiles.writeString(gameDir.resolve(JOURNAL), GSON.toJson(journal));
+                apply(gameDir, journal);
+
+                // Con una sola instancia, lo común que el paquete dejó de traer ya no lo usa nadie
+                if (previous != null && Instance.loadAll(root).size() == 1) {
+                    for (String name : previous.getFiles().keySet()) {
+                        if (!Instance.isSharedEntry(name) || next.get(name) != null) continue;
+                        Path stale = PackExtractor.resolveSafe(root, name);
+                        if (!FileManager.isProtected(stale) && Files.deleteIfExists(stale)) {
+                            System.out.println("Eliminado (ya no está en el paquete): " + name);
+                        }
+                    }
+                }
+                System.out.println("[Launcher] Instalada la versión " + instance.packVersion + " de " + instance + ".");
+                sweepStore(root);
+            } catch (IOException | RuntimeException e) {
+                span.failed();
+                System.out.println("ERROR: No se pudo cambiar a la versión preparada: " + e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Termina un cambio que quedó a medias (el launcher se cerró o falló en el medio). Cada paso
+     * se puede repetir sin problema, así que se vuelve a aplicar el diario completo.
+     */
+    public static synchronized void recover(Path root, Instance instance) {
+        Path gameDir = instance.gameDir(root);
+        Path journalFile = gameDir.resolve(JOURNAL);
+        if (Files.exists(journalFile)) {
+            try {
+                Journal journal;
+                try (Reader reader = Files.newBufferedReader(journalFile)) {
+                    journal = GSON.fromJson(reader, Journal.class);
+                }
+                System.out.println("[Launcher] Terminando la actualización interrumpida de " + instance + "...");
+                Metrics.count("pack.swapRecovered");
+                apply(gameDir, journal);
+            } catch (IOException | JsonParseException e) {
+                System.out.println("AVISO: No se pudo terminar la actualización interrumpida: " + e.getMessage());
+            }
+        }
+        if (Files.isDirectory(gameDir.resolve(OLD_DIR))) {
+            cleanupAsync(gameDir.resolve(OLD_DIR));
+        }
+    }
+
+    /**
+     * Marca y barre el store: lo que no figura en el manifiesto instalado ni en el preparado de ninguna
+     * instancia ya no lo usa nadie. Si alguna instancia instalada no tiene manifiesto no se puede saber
+     * qué usa, y no se borra nada.
+     */
+    static void sweepStore(Path root) {
+        Path storeDir = root.resolve("store");
+        if (!Files.isDirectory(storeDir)) return;
+        try {
+            Set<String> referenced = new HashSet<>();
+            for (Instance other : Instance.loadAll(root)) {
+                Path dir = other.gameDir(root);
+                PackManifest installed = PackManifest.load(PackManifest.pathIn(dir));
+                if (installed == null && Files.exists(dir.resolve("pack_version.txt"))) {
+                    System.out.println("AVISO: " + other + " no tiene manifiesto; no se limpia el store.");
+                    return;
+                }
+                mark(installed, referenced);
+                mark(PackManifest.load(PackManifest.pathIn(dir.resolve(STAGING_DIR))), referenced);
+            }
+            long freed = BlobStore.open(storeDir).sweep(referenced);
+            Metrics.count("store.sweptBytes", freed);
+        } catch (IOException e) {
+            // El store solo ocupa de más; se vuelve a intentar en la próxima actualización
+            System.out.println("AVISO: No se pudo limpiar el store: " + e.getMessage());
+        }
+    }
+
+    private static void mark(PackManifest manifest, Set<String> referenced) {
+        if (manifest == null) return;
+        for (PackManifest.Entry entry : manifest.getFiles().values()) {
+            if (entry.sha256 != null) referenced.add(entry.sha256);
+        }
+    }
+
+    // Enlaza en .staging lo instalado de la instancia, para que el extractor solo escriba las diferencias
+    private static void seed(Path gameDir, Path staging, PackManifest previous) throws IOException {
+        for (String name : previous.getFiles().keySet()) {
+            if (Instance.isSharedEntry(name)) continue;
+            Path live = PackExtractor.resolveSafe(gameDir, name);
+            if (!Files.isRegularFile(live)) continue;
+            link(live, PackExtractor.resolveSafe(staging, name));
+        }
+    }
+
+    // Archivos de una carpeta que se va a reemplazar y que no son del paquete: siguen en la nueva versión
+    private static void carryOver(Path gameDir, Path staging, String dir, PackManifest previous) throws IOException {
+        Path liveDir = gameDir.resolve(dir);
+        if (!Files.isDirectory(liveDir)) return;
+        // Sin manifiesto (instalación vieja o primera) mods/ no se conserva: mezclar mods sueltos crashea
+        if (previous == null && dir.equals("mods")) return;
+
+        try (Stream<Path> walk = Files.walk(liveDir)) {
+            for (Path live : (Iterable<Path>) walk::iterator) {
+                if (!Files.isRegularFile(live)) continue;
+                String name = gameDir.relativize(live).toString().replace('\\', '/');
+                Path staged = staging.resolve(name);
+                boolean userFile = previous == null || previous.get(name) == null;
+                boolean keep = FileManager.isProtected(live) || (userFile && !Files.exists(staged));
+                if (keep) link(live, staged);
+            }
+        }
+    }
+
+    private static void apply(Path gameDir, Journal journal) throws IOException {
+        Path staging = gameDir.resolve(STAGING_DIR);
+        Path parked = gameDir.resolve(OLD_DIR).resolve(String.valueOf(journal.stamp));
+        Files.createDirectories(parked);
+
+        for (String dir : journal.dirs) {
+            Path staged = staging.resolve(dir);
+            if (!Files.exists(staged)) continue; // ya se movió
+            Path live = gameDir.resolve(dir);
+            if (Files.exists(live)) {
+                Files.move(live, parked.resolve(dir), StandardCopyOption.ATOMIC_MOVE);
+            }
+            Files.move(staged, live, StandardCopyOption.ATOMIC_MOVE);
+        }
+        for (String file : journal.files) {
+            Path staged = staging.resolve(file);
+            if (!Files.exists(staged)) continue;
+            Path live = gameDir.resolve(file);
+            if (FileManager.isProtected(live)) {
+                Files.delete(staged);
+            } else {
+                AtomicFiles.replace(staged, live);
+            }
+        }
+        for (String file : journal.staleFiles) {
+            Path live = gameDir.resolve(file);
+            if (!FileManager.isProtected(live)) Files.deleteIfExists(live);
+        }
+
+        Path manifest = PackManifest.pathIn(staging);
+        if (Files.exists(manifest)) {
+            AtomicFiles.replace(manifest, PackManifest.pathIn(gameDir));
+        }
+        AtomicFiles.writeString(gameDir.resolve("pack_version.txt"), journal.packVersion);
+        Files.delete(gameDir.resolve(JOURNAL));
+
+        // Lo que quedó en .staging (el .ready, carpetas vacías) se va con lo viejo
+        if (Files.exists(staging)) {
+            Files.move(staging, parked.resolve(STAGING_DIR), StandardCopyOption.ATOMIC_MOVE);
+        }
+        cleanupAsync(gameDir.resolve(OLD_DIR));
+    }
+
+    // Borra lo apartado sin demorar el lanzamiento; si el launcher se cierra antes, sigue la próxima vez.
+    // Solo toca lo que ya estaba al empezar, así no compite con un cambio que esté apartando carpetas
+    private static synchronized void cleanupAsync(Path oldDir) {
+        if (cleanup != null && cleanup.isAlive()) return;
+        List<Path> parked = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(oldDir)) {
+            entries.forEach(parked::add);
+        } catch (IOException e) {
+            return;
+        }
+        cleanup = new Thread(() -> parked.forEach(PackStager::deleteTree), "pack-cleanup");
+        cleanup.setDaemon(true);
+        cleanup.setPriority(Thread.MIN_PRIORITY);
+        cleanup.start();
+    }
+
+    private static void link(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void deleteTree(Path path) {
+        if (!Files.exists(path)) return;
+        try (Stream<Path> walk = Files.walk(path)) {
+            walk.sorted(Comparator.reverseOrder())
+                    .map(Path::toFile)
+                    .forEach(File::delete);
+        } catch (IOException | UncheckedIOException e) {
+            System.out.println("AVISO: No se pudo borrar " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.milauncher;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Herramienta de línea de comandos para armar y revisar paquetes:
+ *
+ *   java -cp GLauncher.jar com.milauncher.PackTool convert minecraft_package.zip minecraft_package.glpack
+ *   java -cp GLauncher.jar com.milauncher.PackTool convert carpeta/ minecraft_package.glpack
+ *   java -cp GLauncher.jar com.milauncher.PackTool convert minecraft_package.glpack minecraft_package.zip
+ *   java -cp GLauncher.jar com.milauncher.PackTool list minecraft_package.glpack
+ *   java -cp GLauncher.jar com.milauncher.PackTool extract minecraft_package.glpack destino/ [config/ mods/x.jar ...]
+ */
+public class PackTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            usage();
+            return;
+        }
+        switch (args[0]) {
+            case "convert" -> {
+                if (args.length != 3) {
+                    usage();
+                    return;
+                }
+                convert(Paths.get(args[1]), Paths.get(args[2]));
+            }
+            case "list" -> list(Paths.get(args[1]));
+            case "extract" -> {
+                if (args.length < 3) {
+                    usage();
+                    return;
+                }
+                extract(Paths.get(args[1]), Paths.get(args[2]), List.of(args).subList(3, args.length));
+            }
+            default -> usage();
+        }
+    }
+
+    private static void usage() {
+        System.out.println("Uso:");
+        System.out.println("  PackTool convert <entrada .zip|.glpack|carpeta> <salida .glpack|.zip>");
+        System.out.println("  PackTool list <paquete>");
+        System.out.println("  PackTool extract <paquete> <carpeta> [rutas o prefijos...]");
+    }
+
+    static void convert(Path in, Path out) throws IOException {
+        long start = System.nanoTime();
+        String outName = out.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (outName.endsWith(GlPack.EXTENSION)) {
+            if (Files.isDirectory(in)) {
+                GlPack.write(sourcesFromDirectory(in), out);
+            } else {
+                try (ZipFile zip = new ZipFile(in.toFile())) {
+                    GlPack.write(sourcesFromZip(zip), out);
+                }
+            }
+        } else if (outName.endsWith(".zip") && GlPack.isGlPack(in)) {
+            try (GlPack pack = GlPack.open(in)) {
+                writeZip(pack, out);
+            }
+        } else {
+            throw new IllegalArgumentException("Conversión no soportada: " + in + " -> " + out);
+        }
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Listo: " + out + " (" + Files.size(out) / 1024 + " KB, " + ms + " ms)");
+    }
+
+    private static List<GlPack.Source> sourcesFromZip(ZipFile zip) {
+        List<GlPack.Source> sources = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            sources.add(entry.isDirectory()
+                    ? new GlPack.Source(entry.getName(), 0, null)
+                    : new GlPack.Source(entry.getName(), entry.getSize(), () -> zip.getInputStream(entry)));
+        }
+        return sources;
+    }
+
+    private static List<GlPack.Source> sourcesFromDirectory(Path dir) throws IOException {
+        List<GlPack.Source> sources = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                if (path.equals(dir)) continue;
+                String name = dir.relativize(path).toString().replace('\\', '/');
+                if (Files.isDirectory(path)) {
+                    sources.add(new GlPack.Source(name + "/", 0, null));
+                } else {
+                    sources.add(new GlPack.Source(name, Files.size(path), () -> Files.newInputStream(path)));
+                }
+            }
+        }
+        return sources;
+    }
+
+    // Lo ya comprimido va STORED (así PackExtractor lo copia mapeado); para eso el ZIP necesita el CRC antes.
+    // Esos archivos siempre están en bloques sin comprimir, así que leerlos dos veces es barato
+    private static void writeZip(GlPack pack, Path out) throws IOException {
+        AtomicFiles.write(out, tmp -> writeZipTo(pack, tmp));
+    }
+
+    private static void writeZipTo(GlPack pack, Path tmp) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            pack.readAll((entry, content) -> {
+                if (entry.isDirectory()) {
+                    zip.putNextEntry(new ZipEntry(entry.path().endsWith("/") ? entry.path() : entry.path() + "/"));
+                    zip.closeEntry();
+                    return;
+                }
+                ZipEntry zipEntry = new ZipEntry(entry.path());
+                if (!GlPack.isCompressible(entry.path())) {
+                    CRC32 crc = new CRC32();
+                    try (InputStream in = pack.open(entry)) {
+                        byte[] buffer = new byte[64 * 1024];
+                        int len;
+                        while ((len = in.read(buffer)) > 0) crc.update(buffer, 0, len);
+                    }
+                    zipEntry.setMethod(ZipEntry.STORED);
+                    zipEntry.setSize(entry.size());
+                    zipEntry.setCompressedSize(entry.size());
+                    zipEntry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(zipEntry);
+                content.transferTo(zip);
+                zip.closeEntry();
+            });
+        }
+    }
+
+    static void list(Path file) throws IOException {
+        if (GlPack.isGlPack(file)) {
+            try (GlPack pack = GlPack.open(file)) {
+                for (GlPack.Entry entry : pack.entries()) {
+                    System.out.printf("%12d  %s  %5s  %s%n", entry.size(), entry.sha256().substring(0, 12),
+                            entry.isDirectory() ? "-" : String.valueOf(entry.block()), entry.path());
+                }
+                System.out.println(pack.entries().size() + " entradas");
+            }
+        } else {
+            try (ZipFile zip = new ZipFile(file.toFile())) {
+                zip.stream().forEach(e -> System.out.printf("%12d  %s%n", e.getSize(), e.getName()));
+                System.out.println(zip.size() + " entradas");
+            }
+        }
+    }
+
+    // Copia directa: acá no hay archivos del usuario que proteger como en la carpeta del juego
+    private static void extractZip(Path file, Path dest, List<String> only) throws IOException {
+        int count = 0;
+        long bytes = 0;
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!only.isEmpty() && only.stream().noneMatch(entry.getName()::startsWith)) continue;
+                Path target = PackExtractor.resolveSafe(dest, entry.getName());
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                try (InputStream in = zip.getInputStream(entry)) {
+                    bytes += Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                count++;
+            }
+        }
+        System.out.println(count + " archivos extraídos en " + dest + " (" + bytes / 1024 + " KB)");
+    }
+
+    // Extrae todo o solo las rutas pedidas (una ruta exacta o un prefijo como "config/")
+    static void extract(Path file, Path dest, List<String> only) throws IOException {
+        if (!GlPack.isGlPack(file)) {
+            extractZip(file, dest, only);
+            return;
+        }
+        try (GlPack pack = GlPack.open(file)) {
+            List<GlPack.Entry> wanted = new ArrayList<>();
+            for (GlPack.Entry entry : pack.entries()) {
+                if (!only.isEmpty() && only.stream().noneMatch(entry.path()::startsWith)) continue;
+                if (entry.isDirectory()) Files.createDirectories(PackExtractor.resolveSafe(dest, entry.path()));
+                else wanted.add(entry);
+            }
+            ProgressReporter progress = new ProgressReporter();
+            pack.extract(wanted, new GlPack.Sink() {
+                @Override
+                public Path target(GlPack.Entry entry) throws IOException {
+                    return PackExtractor.resolveSafe(dest, entry.path());
+                }
+
+                @Override
+                public void done(GlPack.Entry entry, Path written) {
+                    // Nada más que hacer: ya quedó verificado
+                }
+            }, progress, Runtime.getRuntime().availableProcessors());
+            System.out.println(wanted.size() + " archivos extraídos en " + dest + " (" + progress.getDone() / 1024 + " KB)");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Herramienta de línea de comandos para los parches del GLauncher.jar (ver DeltaPatch y Updater):
+ *
+ *   java -cp GLauncher.jar com.milauncher.PatchTool diff 1.1.3/GLauncher.jar 1.1.4/GLauncher.jar GLauncher-1.1.3-1.1.4.gldiff
+ *   java -cp GLauncher.jar com.milauncher.PatchTool apply 1.1.3/GLauncher.jar GLauncher-1.1.3-1.1.4.gldiff salida.jar
+ *   java -cp GLauncher.jar com.milauncher.PatchTool info GLauncher-1.1.3-1.1.4.gldiff
+ *
+ * 'diff' imprime lo que hay que agregar en "patches" de version.json.
+ */
+public class PatchTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 4 && args[0].equals("diff")) {
+            diff(Paths.get(args[1]), Paths.get(args[2]), Paths.get(args[3]));
+        } else if (args.length == 4 && args[0].equals("apply")) {
+            apply(Paths.get(args[1]), Paths.get(args[2]), Paths.get(args[3]));
+        } else if (args.length == 2 && args[0].equals("info")) {
+            DeltaPatch.Header header = DeltaPatch.readHeader(Paths.get(args[1]));
+            System.out.println("Base:      " + header.baseSize() + " bytes, sha256 " + header.baseSha256());
+            System.out.println("Resultado: " + header.targetSize() + " bytes, sha256 " + header.targetSha256());
+        } else {
+            System.out.println("Uso:");
+            System.out.println("  PatchTool diff <viejo> <nuevo> <parche" + DeltaPatch.EXTENSION + ">");
+            System.out.println("  PatchTool apply <viejo> <parche" + DeltaPatch.EXTENSION + "> <salida>");
+            System.out.println("  PatchTool info <parche" + DeltaPatch.EXTENSION + ">");
+        }
+    }
+
+    static void diff(Path base, Path target, Path patch) throws IOException {
+        long start = System.nanoTime();
+        DeltaPatch.Header header = DeltaPatch.create(base, target, patch);
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        long size = Files.size(patch);
+        System.out.printf("Listo: %s (%d KB, %.1f%% del nuevo, %d ms)%n", patch, size / 1024,
+                100.0 * size / Math.max(1, header.targetSize()), ms);
+        System.out.println("Para \"patches\" en version.json:");
+        System.out.println("  { \"from\": \"<versión vieja>\", \"url\": \"<url de " + patch.getFileName()
+                + ">\", \"sha256\": \"" + Hashes.sha256(patch) + "\", \"jar_sha256\": \"" + header.targetSha256() + "\" }");
+    }
+
+    static void apply(Path base, Path patch, Path out) throws IOException {
+        long start = System.nanoTime();
+        DeltaPatch.apply(base, patch, out, new ProgressReporter());
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("Listo: " + out + " verificado (" + Files.size(out) / 1024 + " KB, " + ms + " ms)");
+    }
+}
@@ -0,0 +1,127 @@
+package com.milauncher;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reporte de progreso compartido por las descargas y la extracción.
+ * Los hilos de trabajo solo suman bytes a contadores atómicos (sin crear objetos ni tocar la UI);
+ * un único pulso atado a los cuadros de JavaFX lee esos contadores y actualiza la barra y el texto
+ * con velocidad (bytes/s) y tiempo restante. Sin UI asociada funciona igual, solo como contador.
+ */
+public class ProgressReporter {
+
+    // El texto se refresca menos seguido que la barra: cambiarlo obliga a JavaFX a re-maquetar
+    private static final long LABEL_INTERVAL_NANOS = 250_000_000L;
+
+    // Suavizado de la velocidad (media móvil exponencial)
+    private static final double SPEED_SMOOTHING = 0.3;
+
+    private final AtomicLong done = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+
+    private AnimationTimer pulse;
+
+    public void setTotal(long bytes) {
+        total.set(bytes);
+    }
+
+    public void add(long bytes) {
+        done.addAndGet(bytes);
+    }
+
+    public void reset() {
+        done.set(0);
+        total.set(0);
+    }
+
+    /** Marca el trabajo como terminado (barra llena). */
+    public void complete() {
+        long t = Math.max(total.get(), 1);
+        total.set(t);
+        done.set(t);
+    }
+
+    public long getDone() {
+        return done.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Empieza a publicar el progreso en la barra y el texto, una vez por cuadro como máximo.
+     * Llamar desde el hilo de JavaFX. 'prefix' va al principio del texto (ej: "Descargado").
+     */
+    public void bind(ProgressBar bar, Label label, String prefix) {
+        unbind();
+        pulse = new AnimationTimer() {
+            private long lastDone = -1;
+            private long lastTotal = -1;
+            private long lastLabelAt;
+            private long speedSampleAt;
+            private long speedSampleDone;
+            private double speed; // bytes por segundo
+
+            @Override
+            public void handle(long now) {
+                long d = done.get();
+                long t = total.get();
+
+                if (d != lastDone || t != lastTotal) {
+                    bar.setProgress(t > 0 ? Math.min(1.0, (double) d / t) : ProgressBar.INDETERMINATE_PROGRESS);
+                    lastDone = d;
+                    lastTotal = t;
+                }
+
+                if (label == null || now - lastLabelAt < LABEL_INTERVAL_NANOS) return;
+
+                if (speedSampleAt > 0 && d >= speedSampleDone) {
+                    double instant = (d - speedSampleDone) * 1e9 / (now - speedSampleAt);
+                    speed = speed == 0 ? instant : speed + SPEED_SMOOTHING * (instant - speed);
+                }
+                speedSampleAt = now;
+                speedSampleDone = d;
+                lastLabelAt = now;
+
+                label.setText(format(prefix, d, t, speed));
+            }
+        };
+        pulse.start();
+    }
+
+    /** Deja de publicar (la barra y el texto quedan con el último valor). */
+    public void unbind() {
+        if (pulse != null) {
+            pulse.stop();
+            pulse = null;
+        }
+    }
+
+    static String format(String prefix, long done, long total, double speed) {
+        StringBuilder sb = new StringBuilder(64);
+        sb.append(prefix).append(": ").append(megabytes(done));
+        if (total > 0) sb.append(" / ").append(megabytes(total));
+        sb.append(" MB");
+
+        if (speed > 0) {
+            sb.append("  -  ").append(megabytes((long) speed)).append(" MB/s");
+            if (total > done) {
+                long seconds = (long) ((total - done) / speed);
+                sb.append("  -  quedan ").append(seconds / 60).append(':');
+                if (seconds % 60 < 10) sb.append('0');
+                sb.append(seconds % 60);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String megabytes(long bytes) {
+        long tenths = bytes * 10 / (1024 * 1024);
+        return (tenths / 10) + "." + (tenths % 10);
+    }
+}
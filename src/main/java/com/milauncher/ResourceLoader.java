@@ -0,0 +1,54 @@
+package com.milauncher;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Imágenes de la interfaz. Se decodifican en segundo plano (el loader de JavaFX) y ya al tamaño
+ * en que se muestran, así el hilo de la UI no espera a decodificar PNG antes del primer frame.
+ * Cada imagen se carga una sola vez; JavaFX abre y cierra el recurso por su cuenta.
+ */
+public class ResourceLoader {
+
+    private static final Map<String, Image> cache = new ConcurrentHashMap<>();
+
+    /** Imagen escalada a (width x height) manteniendo proporción; null si el recurso no existe. */
+    public static Image image(String name, double width, double height) {
+        URL url = ResourceLoader.class.getResource("/" + name);
+        if (url == null) return null;
+        return cache.computeIfAbsent(name + "@" + width + "x" + height,
+                key -> new Image(url.toExternalForm(), width, height, true, true, true));
+    }
+
+    /**
+     * Llama a 'onReady' en el hilo de JavaFX cuando la imagen termina de cargar
+     * (enseguida si ya estaba). Si la carga falla, solo se avisa por consola.
+     */
+    public static void whenLoaded(Image image, String name, Consumer<Image> onReady) {
+        if (image.getProgress() >= 1.0) {
+            deliver(image, name, onReady);
+            return;
+        }
+        image.progressProperty().addListener((obs, old, progress) -> {
+            if (progress.doubleValue() >= 1.0) deliver(image, name, onReady);
+        });
+    }
+
+    private static void deliver(Image image, String name, Consumer<Image> onReady) {
+        if (image.isError()) {
+            System.err.println("Error cargando " + name + ": " + image.getException());
+            return;
+        }
+        StartupTimings.mark("imagen " + name);
+        if (Platform.isFxApplicationThread()) {
+            onReady.accept(image);
+        } else {
+            Platform.runLater(() -> onReady.accept(image));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.milauncher;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Reglas "rules" de los JSON de versión (librerías y argumentos).
+ * Se empieza sin permitir y cada regla que aplica (por sistema operativo y/o features)
+ * decide con su "action". Se compilan una vez para no recorrer el JSON en cada evaluación.
+ */
+public final class Rules {
+
+    public static final String OS_NAME = detectOsName();
+    public static final String OS_ARCH = detectArch();
+    private static final String OS_VERSION = System.getProperty("os.version", "");
+
+    private record Rule(boolean allow, String osName, String osArch, Pattern osVersion, Map<String, Boolean> features) {
+        boolean matches(Map<String, Boolean> active) {
+            if (osName != null && !osName.equalsIgnoreCase(OS_NAME)) return false;
+            if (osArch != null && !osArch.equalsIgnoreCase(OS_ARCH)) return false;
+            if (osVersion != null && !osVersion.matcher(OS_VERSION).find()) return false;
+            for (Map.Entry<String, Boolean> f : features.entrySet()) {
+                if (active.getOrDefault(f.getKey(), false) != f.getValue()) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final Rules ALWAYS = new Rules(List.of());
+
+    private final List<Rule> rules;
+
+    private Rules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    public static Rules compile(JsonArray json) {
+        if (json == null) return ALWAYS;
+        List<Rule> compiled = new ArrayList<>(json.size());
+        for (JsonElement e : json) {
+            JsonObject rule = e.getAsJsonObject();
+            boolean allow = rule.get("action").getAsString().equals("allow");
+            String name = null, arch = null;
+            Pattern version = null;
+            if (rule.has("os")) {
+                JsonObject os = rule.getAsJsonObject("os");
+                if (os.has("name")) name = os.get("name").getAsString();
+                if (os.has("arch")) arch = os.get("arch").getAsString();
+                if (os.has("version")) version = Pattern.compile(os.get("version").getAsString());
+            }
+            Map<String, Boolean> features = new HashMap<>();
+            if (rule.has("features")) {
+                for (Map.Entry<String, JsonElement> f : rule.getAsJsonObject("features").entrySet()) {
+                    features.put(f.getKey(), f.getValue().getAsBoolean());
+                }
+            }
+            compiled.add(new Rule(allow, name, arch, version, Map.copyOf(features)));
+        }
+        return new Rules(List.copyOf(compiled));
+    }
+
+    /** Reglas de un objeto con "rules" opcional (librerías o argumentos); sin "rules" siempre permite. */
+    public static Rules of(JsonObject owner) {
+        return owner.has("rules") ? compile(owner.getAsJsonArray("rules")) : ALWAYS;
+    }
+
+    public boolean allows(Map<String, Boolean> features) {
+        if (rules.isEmpty()) return true;
+        boolean allow = false;
+        for (Rule rule : rules) {
+            if (rule.matches(features)) allow = rule.allow;
+        }
+        return allow;
+    }
+
+    // Nombres que usa Mojang: windows, osx, linux
+    private static String detectOsName() {
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        if (os.contains("win")) return "windows";
+        if (os.contains("mac")) return "osx";
+        return "linux";
+    }
+
+    private static String detectArch() {
+        String arch = System.getProperty("os.arch", "").toLowerCase(Locale.ROOT);
+        if (arch.equals("aarch64") || arch.equals("arm64")) return "arm64";
+        if (arch.equals("x86") || arch.equals("i386") || arch.equals("i686")) return "x86";
+        return "x86_64";
+    }
+}
@@ -0,0 +1,257 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Descarga por segmentos en paralelo usando HTTP Range.
+ * Los datos van a un archivo ".part" y el avance de cada segmento a un ".part.json",
+ * así si se corta la conexión (o se cierra el launcher) la próxima vez se sigue desde donde quedó.
+ * Si el servidor no acepta rangos, se descarga en un solo flujo como antes.
+ */
+public class SegmentedDownloader {
+
+    private static final int MAX_SEGMENTS = 4;
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+    private static final int MAX_ATTEMPTS = 4;
+
+    // Cada cuánto se persiste el avance de un segmento
+    private static final long CHECKPOINT_BYTES = 4L * 1024 * 1024;
+
+    private static final Gson GSON = new Gson();
+
+    // Estado persistido del ".part"
+    private static class State {
+        String url;
+        long length;
+        String validator; // ETag o Last-Modified: si cambia, el archivo remoto es otro
+        List<Segment> segments = new ArrayList<>();
+    }
+
+    private static class Segment {
+        long start;
+        long end;  // inclusivo
+        volatile long done;
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long remaining() {
+            return end - start + 1 - done;
+        }
+    }
+
+    /**
+     * Descarga 'url' en 'target'. Si 'expectedSha256' no es null, el resultado se verifica
+     * y se descarta si no coincide.
+     */
+    public static void download(String url, Path target, String expectedSha256, ProgressReporter progress)
+            throws IOException {
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Path stateFile = target.resolveSibling(target.getFileName() + ".part.json");
+
+        HttpResponse<Void> head = send(HttpRequest.newBuilder(URI.create(url))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()), HttpResponse.BodyHandlers.discarding());
+        long length = head.headers().firstValueAsLong("Content-Length").orElse(-1);
+        boolean ranges = head.headers().firstValue("Accept-Ranges").map(v -> v.contains("bytes")).orElse(false);
+        String validator = head.headers().firstValue("ETag")
+                .or(() -> head.headers().firstValue("Last-Modified")).orElse("");
+
+        if (head.statusCode() >= 400 || length <= 0 || !ranges) {
+            downloadSingle(url, part, progress);
+        } else {
+            State state = loadState(stateFile, part, url, length, validator);
+            downloadSegments(url, part, stateFile, state, progress);
+        }
+
+        if (expectedSha256 != null && !expectedSha256.isBlank()) {
+            String actual = Hashes.sha256(part);
+            if (!actual.equalsIgnoreCase(expectedSha256)) {
+                Files.deleteIfExists(part);
+                Files.deleteIfExists(stateFile);
+                throw new IOException("El archivo descargado no coincide con el hash publicado (" + actual + ")");
+            }
+        }
+
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(stateFile);
+    }
+
+    private static void downloadSegments(String url, Path part, Path stateFile, State state, ProgressReporter progress)
+            throws IOException {
+        long resumed = 0;
+        for (Segment s : state.segments) resumed += s.done;
+        progress.setTotal(state.length);
+        progress.add(resumed);
+        if (resumed > 0) {
+            System.out.println("Reanudando descarga: " + resumed + " de " + state.length + " bytes ya descargados.");
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(part.toFile(), "rw")) {
+            if (raf.length() != state.length) raf.setLength(state.length);
+            FileChannel channel = raf.getChannel();
+            saveState(stateFile, state);
+
+            ExecutorService pool = Executors.newFixedThreadPool(state.segments.size(), r -> {
+                Thread t = new Thread(r, "update-download");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (Segment segment : state.segments) {
+                    if (segment.remaining() <= 0) continue;
+                    tasks.add(pool.submit(() -> {
+                        fetchSegment(url, channel, segment, state, stateFile, progress);
+                        return null;
+                    }));
+                }
+                for (Future<?> task : tasks) task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Descarga interrumpida");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                throw new IOException("Error en la descarga", e.getCause());
+            } finally {
+                pool.shutdownNow();
+                channel.force(false);
+                saveState(stateFile, state);
+            }
+        }
+    }
+
+    // Descarga un segmento, reintentando desde el último byte escrito si se corta
+    private static void fetchSegment(String url, FileChannel channel, Segment segment, State state, Path stateFile,
+                                     ProgressReporter progress) throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            long from = segment.start + segment.done;
+            Metrics.Span span = Metrics.span(Metrics.DOWNLOAD_SEGMENT, "bytes=" + from + "-" + segment.end);
+            try {
+                HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(url))
+                        .header("Range", "bytes=" + from + "-" + segment.end), HttpResponse.BodyHandlers.ofInputStream());
+                if (response.statusCode() != 206) {
+                    response.body().close();
+                    throw new IOException("El servidor no respetó el rango pedido (HTTP " + response.statusCode() + ")");
+                }
+
+                long sinceCheckpoint = 0;
+                try (InputStream in = response.body()) {
+                    byte[] buffer = new byte[64 * 1024];
+                    ByteBuffer src = ByteBuffer.wrap(buffer);
+                    int len;
+                    while (segment.remaining() > 0
+                            && (len = in.read(buffer, 0, (int) Math.min(buffer.length, segment.remaining()))) > 0) {
+                        src.clear().limit(len);
+                        long position = segment.start + segment.done;
+                        while (src.hasRemaining()) {
+                            position += channel.write(src, position);
+                        }
+                        segment.done += len;
+                        sinceCheckpoint += len;
+                        progress.add(len);
+
+                        if (sinceCheckpoint >= CHECKPOINT_BYTES) {
+                            channel.force(false);
+                            saveState(stateFile, state);
+                            sinceCheckpoint = 0;
+                        }
+                    }
+                }
+                if (segment.remaining() > 0) throw new EOFException("Conexión cerrada antes de terminar el segmento");
+                return;
+            } catch (IOException e) {
+                span.failed();
+                Metrics.count("download.segmentRetries");
+                if (attempt >= MAX_ATTEMPTS) throw e;
+                System.out.println("Segmento " + segment.start + "-" + segment.end + " falló (" + e.getMessage()
+                        + "), reintentando...");
+            } finally {
+                span.bytes(segment.start + segment.done - from).close();
+            }
+            Thread.sleep(500L << attempt);
+        }
+    }
+
+    // Sin soporte de rangos: un solo flujo, sin reanudación
+    private static void downloadSingle(String url, Path part, ProgressReporter progress) throws IOException {
+        HttpResponse<InputStream> response = send(HttpRequest.newBuilder(URI.create(url)),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() >= 400) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode() + " al descargar " + url);
+        }
+        progress.setTotal(response.headers().firstValueAsLong("Content-Length").orElse(0));
+
+        try (InputStream in = response.body();
+             OutputStream out = Files.newOutputStream(part)) {
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                out.write(buffer, 0, len);
+                progress.add(len);
+            }
+        }
+    }
+
+    /**
+     * Retoma el estado guardado si corresponde al mismo archivo remoto; si no, arma segmentos nuevos.
+     * El ".part" se crea ya con el largo final, así que si es más corto lo truncó otra cosa y el
+     * avance guardado no vale.
+     */
+    private static State loadState(Path stateFile, Path part, String url, long length, String validator) {
+        if (Files.exists(stateFile)) {
+            try (Reader reader = Files.newBufferedReader(stateFile)) {
+                State saved = GSON.fromJson(reader, State.class);
+                if (saved != null && url.equals(saved.url) && saved.length == length
+                        && validator.equals(saved.validator) && !saved.segments.isEmpty()) {
+                    if (Files.exists(part) && Files.size(part) == length) return saved;
+                    System.out.println("AVISO: La descarga parcial está incompleta, se empieza de cero.");
+                }
+            } catch (IOException | JsonParseException e) {
+                System.out.println("AVISO: Estado de descarga ilegible, se empieza de cero.");
+            }
+        }
+
+        State state = new State();
+        state.url = url;
+        state.length = length;
+        state.validator = validator;
+        int count = (int) Math.max(1, Math.min(MAX_SEGMENTS, length / MIN_SEGMENT_SIZE));
+        long size = length / count;
+        for (int i = 0; i < count; i++) {
+            long start = i * size;
+            long end = i == count - 1 ? length - 1 : start + size - 1;
+            state.segments.add(new Segment(start, end));
+        }
+        return state;
+    }
+
+    private static synchronized void saveState(Path stateFile, State state) throws IOException {
+        AtomicFiles.writeString(stateFile, GSON.toJson(state));
+    }
+
+    private static <T> HttpResponse<T> send(HttpRequest.Builder request, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        try {
+            return Http.CLIENT.send(request.timeout(Http.READ_TIMEOUT).header("User-Agent", Http.USER_AGENT).build(),
+                    handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Descarga interrumpida");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.milauncher;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tiempos del arranque del launcher, medidos desde que arrancó el proceso.
+ * Cada fase anota cuándo terminó; al dibujarse el primer frame se imprime el resumen.
+ */
+public class StartupTimings {
+
+    // Inicio del proceso según el sistema operativo; si no está disponible, desde que se cargó esta clase
+    private static final long START_NANOS = System.nanoTime() - ProcessHandle.current().info().startInstant()
+            .map(start -> Duration.between(start, Instant.now()).toNanos())
+            .orElse(0L);
+
+    private static final Map<String, Long> phases = new LinkedHashMap<>();
+
+    public static synchronized void mark(String phase) {
+        phases.putIfAbsent(phase, (System.nanoTime() - START_NANOS) / 1_000_000);
+    }
+
+    /** Copia de las fases registradas, en ms desde el inicio del proceso. */
+    public static synchronized Map<String, Long> snapshot() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    public static synchronized void print() {
+        StringBuilder sb = new StringBuilder("[Arranque]");
+        long previous = 0;
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            sb.append("\n  ").append(phase.getKey()).append(": ").append(phase.getValue()).append(" ms")
+                    .append(" (+").append(phase.getValue() - previous).append(")");
+            previous = phase.getValue();
+        }
+        System.out.println(sb);
+    }
+}
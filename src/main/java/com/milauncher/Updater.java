@@ -1,5 +1,6 @@
 package com.milauncher;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import javafx.application.Platform;
@@ -12,23 +13,61 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.*;
-import java.net.HttpURLConnection;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Auto-actualización del launcher. version.json publica la última versión, el instalador completo y,
+ * opcionalmente, parches binarios (DeltaPatch) del GLauncher.jar desde versiones anteriores:
+ *
+ *   {
+ *     "latest_version": "1.1.4",
+ *     "download_url": ".../GLauncher_Setup_v1.1.4.exe",
+ *     "sha256": "<hash del instalador 1.1.4>",
+ *     "patches": [ { "from": "1.1.3", "url": ".../GLauncher-1.1.3-1.1.4.gldiff", "sha256": "<hash del parche>",
+ *                    "jar_sha256": "<hash del GLauncher.jar 1.1.4>" } ]
+ *   }
+ *
+ * El parche se arma contra el GLauncher.jar instalado, que tiene cualquier instalación: en el jar cada
+ * clase va comprimida por separado, así que cambiar unas pocas deja igual casi todo el archivo (en el
+ * instalador .exe todo va en un solo flujo comprimido y el parche saldría casi del tamaño completo).
+ * El jar armado se verifica contra "jar_sha256" y lo pone en su lugar JarSwap cuando el launcher cierra.
+ * Si algo no coincide, o el jar no se puede reemplazar, se baja el instalador completo.
+ */
 public class Updater {
 
     // --- CONFIGURACIÓN ---
-    private static final String CURRENT_VERSION = "1.1.3";
-    private static final String VERSION_URL = "https://raw.githubusercontent.com/NehuenUTN/GLauncher/refs/heads/main/version.json";
+    static final String CURRENT_VERSION = "1.1.3";
+    // Se puede apuntar a un servidor local con -Dglauncher.versionUrl=... para probar actualizaciones
+    private static final String VERSION_URL = System.getProperty("glauncher.versionUrl",
+            "https://raw.githubusercontent.com/NehuenUTN/GLauncher/refs/heads/main/version.json");
 
     // Ruta temporal para descargar el nuevo instalador
     private static final Path DOWNLOAD_PATH = Paths.get(System.getProperty("java.io.tmpdir"), "GLauncher_Setup_New.exe");
 
+    // Parches descargados y jars armados hasta que JarSwap los pone en su lugar
+    private static final String UPDATES_DIR = "updates";
+
+    /**
+     * Lo que publica version.json para la última versión. 'patchUrl' es null si no hay parche desde la actual;
+     * 'jarSha256' es el hash del GLauncher.jar que tiene que salir del parche.
+     */
+    record Release(String version, String downloadUrl, String sha256, String patchUrl, String patchSha256,
+                   String jarSha256) {
+    }
+
+    /** Lo descargado: el jar nuevo armado con el parche o el instalador completo. */
+    record Update(Path file, boolean patchedJar) {
+    }
+
     public static void checkUpdate() {
         new Thread(() -> {
             try {
+                cleanUpdates(FileManager.getMinecraftDir().resolve(UPDATES_DIR));
                 if (VERSION_URL.isEmpty()) return;
 
                 // 1. Obtener info de versión
@@ -37,14 +76,12 @@ public class Updater {
                     versionInfo = JsonParser.parseReader(reader).getAsJsonObject();
                 }
 
-                String latestVersion = versionInfo.get("latest_version").getAsString();
-                String downloadUrl = versionInfo.get("download_url").getAsString();
-
-                System.out.println("Verificando actualizaciones... Actual: " + CURRENT_VERSION + " | Nueva: " + latestVersion);
+                Release release = readRelease(versionInfo);
+                System.out.println("Verificando actualizaciones... Actual: " + CURRENT_VERSION + " | Nueva: " + release.version());
 
                 // 2. Si hay nueva versión, preguntamos
-                if (isNewer(latestVersion, CURRENT_VERSION)) {
-                    Platform.runLater(() -> showConfirmDialog(latestVersion, downloadUrl));
+                if (isNewer(release.version(), CURRENT_VERSION)) {
+                    Platform.runLater(() -> showConfirmDialog(release));
                 }
 
             } catch (Exception e) {
@@ -53,6 +90,29 @@ public class Updater {
         }).start();
     }
 
+    static Release readRelease(JsonObject versionInfo) {
+        String latestVersion = versionInfo.get("latest_version").getAsString();
+        String downloadUrl = versionInfo.get("download_url").getAsString();
+        // Hash opcional del instalador; si está publicado, se verifica antes de ejecutarlo
+        String sha256 = versionInfo.has("sha256") ? versionInfo.get("sha256").getAsString() : null;
+
+        String patchUrl = null;
+        String patchSha256 = null;
+        String jarSha256 = null;
+        if (versionInfo.has("patches") && versionInfo.get("patches").isJsonArray()) {
+            for (JsonElement element : versionInfo.getAsJsonArray("patches")) {
+                JsonObject patch = element.getAsJsonObject();
+                if (patch.has("from") && patch.has("url") && patch.get("from").getAsString().equals(CURRENT_VERSION)) {
+                    patchUrl = patch.get("url").getAsString();
+                    patchSha256 = patch.has("sha256") ? patch.get("sha256").getAsString() : null;
+                    jarSha256 = patch.has("jar_sha256") ? patch.get("jar_sha256").getAsString() : null;
+                    break;
+                }
+            }
+        }
+        return new Release(latestVersion, downloadUrl, sha256, patchUrl, patchSha256, jarSha256);
+    }
+
     private static boolean isNewer(String latest, String current) {
         try {
             String[] l = latest.split("\\.");
@@ -69,10 +129,10 @@ public class Updater {
     }
 
     // Paso 1: Preguntar si quiere actualizar
-    private static void showConfirmDialog(String latestVersion, String downloadUrl) {
+    private static void showConfirmDialog(Release release) {
         Alert alert = new Alert(AlertType.CONFIRMATION);
         alert.setTitle("Actualización Disponible");
-        alert.setHeaderText("¡Nueva versión " + latestVersion + " disponible!");
+        alert.setHeaderText("¡Nueva versión " + release.version() + " disponible!");
         alert.setContentText("Es necesario actualizar el launcher para continuar.\nLa descarga puede tomar unos minutos.");
 
         ButtonType btnUpdate = new ButtonType("Actualizar");
@@ -83,7 +143,7 @@ public class Updater {
         alert.showAndWait().ifPresent(type -> {
             if (type == btnUpdate) {
                 // Si acepta, mostramos la ventana de descarga
-                showDownloadProgressWindow(downloadUrl);
+                showDownloadProgressWindow(release);
             } else {
                 Platform.exit();
                 System.exit(0);
@@ -92,7 +152,7 @@ public class Updater {
     }
 
     // Paso 2: Ventana de Descarga con Barra (Bloqueante)
-    private static void showDownloadProgressWindow(String downloadUrl) {
+    private static void showDownloadProgressWindow(Release release) {
         Stage progressStage = new Stage();
         progressStage.initModality(Modality.APPLICATION_MODAL); // BLOQUEA la ventana principal
         progressStage.setTitle("Descargando Actualización...");
@@ -110,50 +170,32 @@ public class Updater {
         progressStage.setScene(new Scene(layout));
         progressStage.show();
 
+        ProgressReporter progress = new ProgressReporter();
+        progress.bind(progressBar, lblStatus, "Descargado");
+
         // Iniciar descarga en hilo separado
-        new Thread(() -> downloadFileWithProgress(downloadUrl, progressBar, lblStatus, progressStage)).start();
+        new Thread(() -> downloadFileWithProgress(release, progress, progressStage)).start();
     }
 
-    // Paso 3: Lógica de descarga byte a byte para mover la barra
-    private static void downloadFileWithProgress(String urlString, ProgressBar bar, Label lbl, Stage stage) {
+    // Paso 3: Descarga por segmentos (reanudable). La barra la mueve el ProgressReporter, una vez por cuadro
+    private static void downloadFileWithProgress(Release release, ProgressReporter progress, Stage stage) {
         try {
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            long fileSize = connection.getContentLengthLong(); // Tamaño total
-
-            try (InputStream in = connection.getInputStream();
-                 FileOutputStream out = new FileOutputStream(DOWNLOAD_PATH.toFile())) {
-
-                byte[] buffer = new byte[8192]; // Buffer de 8KB
-                int bytesRead;
-                long totalRead = 0;
-
-                while ((bytesRead = in.read(buffer)) != -1) {
-                    out.write(buffer, 0, bytesRead);
-                    totalRead += bytesRead;
-
-                    // Calcular porcentaje
-                    double progress = (double) totalRead / fileSize;
-
-                    // Actualizar UI (Importante: Platform.runLater)
-                    final long finalTotalRead = totalRead;
-                    Platform.runLater(() -> {
-                        bar.setProgress(progress);
-                        lbl.setText(String.format("Descargado: %.1f MB / %.1f MB",
-                                finalTotalRead / 1024.0 / 1024.0, fileSize / 1024.0 / 1024.0));
-                    });
-                }
-            }
+            Path jar = installedJar();
+            Update update = fetchUpdate(release, jar, FileManager.getMinecraftDir().resolve(UPDATES_DIR),
+                    DOWNLOAD_PATH, progress);
+            Platform.runLater(progress::unbind);
 
             // Descarga finalizada
             Platform.runLater(() -> {
                 stage.close();
-                runInstaller();
+                if (update.patchedJar()) swapJar(update.file(), jar);
+                else runInstaller();
             });
 
         } catch (Exception e) {
             e.printStackTrace();
             Platform.runLater(() -> {
+                progress.unbind();
                 stage.close();
                 Alert error = new Alert(AlertType.ERROR);
                 error.setTitle("Error");
@@ -164,6 +206,94 @@ public class Updater {
         }
     }
 
+    /**
+     * Baja la actualización: si hay parche desde la versión actual y el jar instalado se puede reemplazar,
+     * arma el jar nuevo en 'updates'; si no (o algo falla), baja el instalador completo a 'installer'.
+     * 'installedJar' es null si el launcher no corre desde un jar (ej: desde el IDE). No usa la UI.
+     */
+    static Update fetchUpdate(Release release, Path installedJar, Path updates, Path installer,
+                              ProgressReporter progress) throws IOException {
+        if (release.patchUrl() != null && release.jarSha256() != null && canReplace(installedJar)) {
+            Files.createDirectories(updates);
+            Path patch = updates.resolve("GLauncher-" + CURRENT_VERSION + "-" + release.version() + DeltaPatch.EXTENSION);
+            Path jar = updates.resolve("GLauncher-" + release.version() + ".jar");
+            try {
+                System.out.println("Descargando parche " + CURRENT_VERSION + " -> " + release.version() + "...");
+                SegmentedDownloader.download(release.patchUrl(), patch, release.patchSha256(), progress);
+                progress.reset();
+                DeltaPatch.apply(installedJar, patch, jar, progress);
+                // El parche trae su propio hash esperado; el que manda es el publicado en version.json
+                String actual = Hashes.sha256(jar);
+                if (!actual.equalsIgnoreCase(release.jarSha256())) {
+                    throw new IOException("el jar armado no coincide con el hash publicado (" + actual + ")");
+                }
+                System.out.println("Launcher " + release.version() + " armado con el parche ("
+                        + Files.size(patch) / 1024 + " KB descargados).");
+                Metrics.count("update.patched");
+                return new Update(jar, true);
+            } catch (IOException e) {
+                System.out.println("AVISO: No se pudo actualizar con el parche, se descarga el instalador completo: " + e.getMessage());
+                Metrics.count("update.patchFailed");
+                Files.deleteIfExists(jar);
+                progress.reset();
+            } finally {
+                Files.deleteIfExists(patch);
+            }
+        }
+
+        SegmentedDownloader.download(release.downloadUrl(), installer, release.sha256(), progress);
+        Metrics.count("update.full");
+        return new Update(installer, false);
+    }
+
+    /** El GLauncher.jar desde el que corre el launcher, o null si no corre desde un jar. */
+    static Path installedJar() {
+        try {
+            Path location = Paths.get(Updater.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return Files.isRegularFile(location) && location.toString().endsWith(".jar") ? location : null;
+        } catch (URISyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Instalado en una carpeta sin permisos de escritura (ej: Program Files) solo sirve el instalador
+    private static boolean canReplace(Path jar) {
+        return jar != null && Files.isWritable(jar) && Files.isWritable(jar.toAbsolutePath().getParent());
+    }
+
+    // Lo que quedó de actualizaciones anteriores (el jar que ya se copió, un parche a medias)
+    private static void cleanUpdates(Path updates) {
+        if (!Files.isDirectory(updates)) return;
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(updates)) {
+            for (Path file : leftovers) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.out.println("AVISO: No se pudo limpiar " + updates + ": " + e.getMessage());
+        }
+    }
+
+    // Paso 4 (con parche): JarSwap copia el jar nuevo cuando este proceso termina y vuelve a abrir el launcher
+    private static void swapJar(Path newJar, Path installedJar) {
+        try {
+            String java = ProcessHandle.current().info().command()
+                    .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            List<String> command = new ArrayList<>(List.of(java, "-cp", newJar.toString(), JarSwap.class.getName(),
+                    String.valueOf(ProcessHandle.current().pid()), newJar.toString(), installedJar.toString(), java));
+            // Se reabre con las mismas opciones de la JVM (archivo CDS, etc.)
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-jar");
+            command.add(installedJar.toString());
+
+            System.out.println("Reemplazando el launcher y reiniciando...");
+            new ProcessBuilder(command).start();
+            Platform.exit();
+            System.exit(0);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     // Paso 4: Ejecutar el instalador
     private static void runInstaller() {
         try {
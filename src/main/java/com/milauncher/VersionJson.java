@@ -0,0 +1,82 @@
+package com.milauncher;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON de versión (vanilla o Forge) ya compilado: las reglas de cada librería y las plantillas de los
+ * argumentos jvm/game. Se compila una vez por archivo y se reutiliza mientras no cambie en disco, así
+ * volver a resolver el plan (por ejemplo cuando la preparación anticipada se reinicia por un cambio de
+ * RAM o de usuario) no vuelve a parsear el JSON ni a compilar reglas y expresiones regulares.
+ */
+final class VersionJson {
+
+    /** Librería del JSON con sus reglas ya compiladas. */
+    record Library(JsonObject json, Rules rules) {
+    }
+
+    private record Cached(FileTime modified, long size, VersionJson version) {
+    }
+
+    private static final Map<Path, Cached> cache = new ConcurrentHashMap<>();
+
+    final JsonObject json;
+    final List<Library> libraries;
+    final ArgumentTemplate jvmArgs;
+    final ArgumentTemplate gameArgs;
+
+    private VersionJson(JsonObject json) {
+        this.json = json;
+        List<Library> libs = new ArrayList<>();
+        if (json.has("libraries")) {
+            for (JsonElement e : json.getAsJsonArray("libraries")) {
+                JsonObject lib = e.getAsJsonObject();
+                libs.add(new Library(lib, Rules.of(lib)));
+            }
+        }
+        this.libraries = List.copyOf(libs);
+        JsonObject arguments = json.has("arguments") ? json.getAsJsonObject("arguments") : null;
+        this.jvmArgs = ArgumentTemplate.compile(array(arguments, "jvm"));
+        this.gameArgs = ArgumentTemplate.compile(array(arguments, "game"));
+    }
+
+    static VersionJson compile(JsonObject json) {
+        return new VersionJson(json);
+    }
+
+    /** Lee y compila el archivo, o devuelve lo ya compilado si no cambió desde la última vez. */
+    static VersionJson load(Path file) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        long size = Files.size(file);
+        Cached cached = cache.get(file);
+        if (cached != null && cached.modified().equals(modified) && cached.size() == size) {
+            Metrics.count("versionJson.cacheHit");
+            return cached.version();
+        }
+
+        VersionJson version;
+        try (Metrics.Span span = Metrics.span(Metrics.JSON_LOAD, file.getFileName().toString())) {
+            byte[] data = Files.readAllBytes(file);
+            span.bytes(data.length);
+            version = compile(JsonParser.parseString(new String(data, StandardCharsets.UTF_8)).getAsJsonObject());
+        }
+        cache.put(file, new Cached(modified, size, version));
+        return version;
+    }
+
+    private static JsonArray array(JsonObject owner, String key) {
+        return owner != null && owner.has(key) ? owner.getAsJsonArray(key) : null;
+    }
+}
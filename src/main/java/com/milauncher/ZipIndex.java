@@ -0,0 +1,129 @@
+package com.milauncher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lector mínimo del directorio central de un ZIP (con soporte ZIP64) sobre un FileChannel.
+ * ZipFile no expone dónde empiezan los datos de cada entrada; lo necesitamos para copiar
+ * las entradas STORED directamente del archivo al disco sin pasar por el heap.
+ */
+class ZipIndex {
+
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_EOCD_SIG = 0x06064b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int LOC_SIG = 0x04034b50;
+
+    private final FileChannel channel;
+    private final Map<String, Long> localHeaderOffsets = new HashMap<>();
+
+    ZipIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+        readCentralDirectory();
+    }
+
+    /** Posición en el archivo donde empiezan los datos de la entrada, o -1 si no existe. */
+    long dataOffset(String name) throws IOException {
+        Long header = localHeaderOffsets.get(name);
+        if (header == null) return -1;
+
+        ByteBuffer loc = read(header, 30);
+        if (loc.getInt(0) != LOC_SIG) {
+            throw new IOException("Cabecera local inválida para " + name);
+        }
+        int nameLen = Short.toUnsignedInt(loc.getShort(26));
+        int extraLen = Short.toUnsignedInt(loc.getShort(28));
+        return header + 30 + nameLen + extraLen;
+    }
+
+    private void readCentralDirectory() throws IOException {
+        long fileSize = channel.size();
+        int tailLen = (int) Math.min(fileSize, 22 + 0xFFFF);
+        long tailStart = fileSize - tailLen;
+        ByteBuffer tail = read(tailStart, tailLen);
+
+        // El EOCD está al final, seguido solo por el comentario (máx. 64 KB)
+        int eocd = -1;
+        for (int i = tailLen - 22; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIG) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) throw new IOException("No es un ZIP válido (falta el fin del directorio central)");
+
+        long entries = Short.toUnsignedInt(tail.getShort(eocd + 10));
+        long cenSize = Integer.toUnsignedLong(tail.getInt(eocd + 12));
+        long cenOffset = Integer.toUnsignedLong(tail.getInt(eocd + 16));
+
+        if (entries == 0xFFFF || cenSize == 0xFFFFFFFFL || cenOffset == 0xFFFFFFFFL) {
+            long locatorPos = tailStart + eocd - 20;
+            ByteBuffer locator = read(locatorPos, 20);
+            if (locator.getInt(0) != ZIP64_LOCATOR_SIG) throw new IOException("ZIP64 sin localizador");
+            ByteBuffer zip64 = read(locator.getLong(8), 56);
+            if (zip64.getInt(0) != ZIP64_EOCD_SIG) throw new IOException("ZIP64 con fin de directorio inválido");
+            entries = zip64.getLong(32);
+            cenSize = zip64.getLong(40);
+            cenOffset = zip64.getLong(48);
+        }
+
+        ByteBuffer cen = channel.map(FileChannel.MapMode.READ_ONLY, cenOffset, cenSize).order(ByteOrder.LITTLE_ENDIAN);
+        int pos = 0;
+        for (long i = 0; i < entries; i++) {
+            if (cen.getInt(pos) != CEN_SIG) throw new IOException("Directorio central corrupto");
+            long compressedSize = Integer.toUnsignedLong(cen.getInt(pos + 20));
+            long size = Integer.toUnsignedLong(cen.getInt(pos + 24));
+            int nameLen = Short.toUnsignedInt(cen.getShort(pos + 28));
+            int extraLen = Short.toUnsignedInt(cen.getShort(pos + 30));
+            int commentLen = Short.toUnsignedInt(cen.getShort(pos + 32));
+            long offset = Integer.toUnsignedLong(cen.getInt(pos + 42));
+
+            byte[] nameBytes = new byte[nameLen];
+            cen.get(pos + 46, nameBytes);
+            String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+            if (offset == 0xFFFFFFFFL) {
+                offset = zip64Offset(cen, pos + 46 + nameLen, extraLen,
+                        size == 0xFFFFFFFFL, compressedSize == 0xFFFFFFFFL);
+            }
+            localHeaderOffsets.put(name, offset);
+            pos += 46 + nameLen + extraLen + commentLen;
+        }
+    }
+
+    // En el extra ZIP64 (id 0x0001) los campos aparecen solo si valían 0xFFFFFFFF, en este orden
+    private static long zip64Offset(ByteBuffer cen, int extraStart, int extraLen,
+                                    boolean hasSize, boolean hasCompressedSize) throws IOException {
+        int p = extraStart;
+        int end = extraStart + extraLen;
+        while (p + 4 <= end) {
+            int id = Short.toUnsignedInt(cen.getShort(p));
+            int len = Short.toUnsignedInt(cen.getShort(p + 2));
+            if (id == 0x0001) {
+                int field = p + 4;
+                if (hasSize) field += 8;
+                if (hasCompressedSize) field += 8;
+                return cen.getLong(field);
+            }
+            p += 4 + len;
+        }
+        throw new IOException("Entrada ZIP64 sin offset");
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                throw new IOException("Fin de archivo inesperado en el ZIP");
+            }
+        }
+        return buf.flip();
+    }
+}
@@ -0,0 +1,65 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArgumentTemplateTest {
+
+    private static final Path ROOT = Path.of("raiz");
+    private static final LaunchContext CONTEXT = LaunchContext.forGame(ROOT, ROOT.resolve("instancias/x"),
+            "1.20.1-forge", "Steve", "5");
+
+    @Test
+    void resolvesKnownPlaceholdersAndLeavesUnknownOnes() {
+        List<String> args = resolve("""
+                [ "--username", "${auth_player_name}",
+                  "--assetIndex=${assets_index_name}/${sin_definir}",
+                  "${quickPlayPath", "literal" ]
+                """);
+
+        assertEquals(List.of("--username", "Steve",
+                "--assetIndex=5/${sin_definir}",
+                "${quickPlayPath", "literal"), args);
+    }
+
+    @Test
+    void skipsArgumentsWhoseRulesDoNotApply() {
+        List<String> args = resolve("""
+                [ "--version", "${version_name}",
+                  { "rules": [ { "action": "allow", "features": { "is_demo_user": true } } ], "value": "--demo" },
+                  { "rules": [ { "action": "allow", "features": { "has_custom_resolution": true } } ],
+                    "value": [ "--width", "${resolution_width}" ] },
+                  { "rules": [ { "action": "allow", "os": { "name": "%s" } } ], "value": [ "-Dsistema=${launcher_name}", "-Xss2M" ] },
+                  { "rules": [ { "action": "allow" }, { "action": "disallow", "os": { "name": "%<s" } } ], "value": "-Dotro" } ]
+                """.formatted(Rules.OS_NAME));
+
+        assertEquals(List.of("--version", "1.20.1-forge", "-Dsistema=GLauncher", "-Xss2M"), args);
+    }
+
+    @Test
+    void aCompiledTemplateIsReusedWithOtherContexts() {
+        ArgumentTemplate template = compile("[ \"-cp\", \"${classpath}\" ]");
+        List<String> args = new ArrayList<>();
+        template.resolve(CONTEXT.with("classpath", "a.jar"), args);
+        template.resolve(CONTEXT.with("classpath", "a.jar").with("classpath", "b.jar"), args);
+
+        assertEquals(List.of("-cp", "a.jar", "-cp", "b.jar"), args);
+    }
+
+    private static List<String> resolve(String json) {
+        List<String> args = new ArrayList<>();
+        compile(json).resolve(CONTEXT, args);
+        return args;
+    }
+
+    private static ArgumentTemplate compile(String json) {
+        return ArgumentTemplate.compile(new Gson().fromJson(json, JsonArray.class));
+    }
+}
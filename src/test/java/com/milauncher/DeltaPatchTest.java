@@ -0,0 +1,125 @@
+package com.milauncher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaPatchTest {
+
+    // Encabezado del .gldiff: "GLDIFF", versión, bloque, tamaño+sha del base y del resultado
+    private static final int HEADER_SIZE = 6 + 2 + 4 + (8 + 32) * 2;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void identicalFilesBecomeOneCopy() throws IOException {
+        byte[] base = random(1, 300_000);
+        roundTrip(base, base.clone());
+        assertTrue(Files.size(dir.resolve("p.gldiff")) < HEADER_SIZE + 64, "el parche debería ser una sola copia");
+    }
+
+    @Test
+    void shiftedContentIsFoundInTheBase() throws IOException {
+        byte[] base = random(2, 300_000);
+        byte[] target = concat(random(3, 37), base, random(4, 5_000));
+        roundTrip(base, target);
+        // Solo deberían viajar los bytes nuevos (37 + 5000), no el archivo completo
+        assertTrue(Files.size(dir.resolve("p.gldiff")) < 10_000);
+    }
+
+    @Test
+    void unrelatedFilesStillRoundTrip() throws IOException {
+        roundTrip(random(5, 100_000), random(6, 120_000));
+    }
+
+    @Test
+    void emptyFilesRoundTrip() throws IOException {
+        roundTrip(new byte[0], new byte[0]);
+        roundTrip(new byte[0], random(7, 3_000));
+    }
+
+    @Test
+    void rejectsADifferentBase() throws IOException {
+        byte[] base = random(8, 50_000);
+        Path patch = create(base, concat(base, random(9, 100)));
+        byte[] changed = base.clone();
+        changed[20_000] ^= 1;
+        Path baseFile = write("base", changed);
+
+        Path out = dir.resolve("out");
+        IOException e = assertThrows(IOException.class,
+                () -> DeltaPatch.apply(baseFile, patch, out, new ProgressReporter()));
+        assertTrue(e.getMessage().contains("no corresponde"), e.getMessage());
+        assertFalse(Files.exists(out));
+        assertFalse(Files.exists(dir.resolve("out.tmp")));
+    }
+
+    @Test
+    void rejectsATamperedPatch() throws IOException {
+        byte[] base = random(10, 50_000);
+        Path patch = create(base, concat(random(11, 3_000), base));
+        byte[] data = Files.readAllBytes(patch);
+        data[HEADER_SIZE + (data.length - HEADER_SIZE) / 2] ^= 0x55;
+        Files.write(patch, data);
+
+        Path out = dir.resolve("out");
+        assertThrows(IOException.class, () -> DeltaPatch.apply(dir.resolve("base"), patch, out, new ProgressReporter()));
+        assertFalse(Files.exists(out));
+        assertFalse(Files.exists(dir.resolve("out.tmp")));
+    }
+
+    @Test
+    void headerDescribesBothFiles() throws IOException {
+        byte[] base = random(12, 10_000);
+        byte[] target = random(13, 20_000);
+        DeltaPatch.Header created = DeltaPatch.create(write("base", base), write("target", target), dir.resolve("p.gldiff"));
+        DeltaPatch.Header read = DeltaPatch.readHeader(dir.resolve("p.gldiff"));
+        assertEquals(created, read);
+        assertEquals(base.length, read.baseSize());
+        assertEquals(Hashes.sha256(dir.resolve("target")), read.targetSha256());
+    }
+
+    private void roundTrip(byte[] base, byte[] target) throws IOException {
+        Path patch = create(base, target);
+        Path out = dir.resolve("out");
+        ProgressReporter progress = new ProgressReporter();
+        DeltaPatch.apply(dir.resolve("base"), patch, out, progress);
+        assertArrayEquals(target, Files.readAllBytes(out));
+        assertEquals(target.length, progress.getDone());
+    }
+
+    private Path create(byte[] base, byte[] target) throws IOException {
+        Path patch = dir.resolve("p.gldiff");
+        DeltaPatch.create(write("base", base), write("target", target), patch);
+        return patch;
+    }
+
+    private Path write(String name, byte[] data) throws IOException {
+        return Files.write(dir.resolve(name), data);
+    }
+
+    private static byte[] random(long seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int size = 0;
+        for (byte[] part : parts) size += part.length;
+        byte[] result = new byte[size];
+        int pos = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, pos, part.length);
+            pos += part.length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,82 @@
+package com.milauncher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Servidor HTTP local para los tests de descarga: responde HEAD y GET, con rangos (206) y ETag como un CDN
+final class FileServer implements AutoCloseable {
+
+    final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    // Ruta de cada GET, y el Range pedido si lo hubo ("/a.bin bytes=0-99")
+    final List<String> requests = new CopyOnWriteArrayList<>();
+    volatile String etag = "\"v1\"";
+
+    private final HttpServer server;
+
+    FileServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        byte[] body = files.get(path);
+        if (body == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        requests.add(range == null ? path : path + " " + range);
+        int start = 0;
+        int end = body.length - 1;
+        int status = 200;
+        if (range != null) {
+            // Solo "bytes=a-b" o "bytes=a-", que es lo que pide el launcher
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) end = Math.min(end, Integer.parseInt(bounds[1]));
+            if (start > end) {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + body.length);
+                exchange.sendResponseHeaders(416, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+            status = 206;
+        }
+        exchange.sendResponseHeaders(status, end - start + 1);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body, start, end - start + 1);
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
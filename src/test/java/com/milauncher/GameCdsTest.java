@@ -0,0 +1,79 @@
+package com.milauncher;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameCdsTest {
+
+    @TempDir
+    Path root;
+
+    private Instance instance;
+    private LaunchPlan plan;
+    private String java;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        instance = Instance.defaultInstance();
+        plan = new LaunchPlan(List.of(), "config");
+        plan.mainClass = "cpw.mods.bootstraplauncher.BootstrapLauncher";
+        plan.jvmArgs.add("-Xmx2048M");
+        java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    }
+
+    @Test
+    void adoptsTheArchiveOfARunThatStarted() throws IOException {
+        Path pending = recorded(GameCds.jvmArgs(root, instance, plan, java));
+        Files.writeString(pending, "clases");
+        GameCds.markReady(root, instance, plan, java);
+
+        List<String> args = GameCds.jvmArgs(root, instance, plan, java);
+
+        assertTrue(args.get(0).startsWith("-XX:SharedArchiveFile="), args.toString());
+        Path archive = Paths.get(args.get(0).substring("-XX:SharedArchiveFile=".length()));
+        assertEquals("clases", Files.readString(archive));
+        assertFalse(Files.exists(pending));
+    }
+
+    @Test
+    void discardsTheArchiveOfARunThatCrashed() throws IOException {
+        Path pending = recorded(GameCds.jvmArgs(root, instance, plan, java));
+        Files.writeString(pending, "clases a medias");
+
+        // Sin markReady: la corrida anterior no llegó a arrancar y se vuelve a grabar
+        assertEquals(pending, recorded(GameCds.jvmArgs(root, instance, plan, java)));
+        assertFalse(Files.exists(pending));
+    }
+
+    @Test
+    void aNewPlanDropsTheOldFiles() throws IOException {
+        Path pending = recorded(GameCds.jvmArgs(root, instance, plan, java));
+        Files.writeString(pending, "clases");
+        GameCds.markReady(root, instance, plan, java);
+
+        plan.jvmArgs.add("-XX:+UseG1GC");
+        recorded(GameCds.jvmArgs(root, instance, plan, java));
+
+        try (var files = Files.list(root.resolve("cds"))) {
+            assertEquals(List.of(), files.toList());
+        }
+    }
+
+    // Archivo provisorio que pide grabar -XX:ArchiveClassesAtExit
+    private static Path recorded(List<String> args) {
+        assertEquals(1, args.size(), args.toString());
+        assertTrue(args.get(0).startsWith("-XX:ArchiveClassesAtExit="), args.toString());
+        Path pending = Paths.get(args.get(0).substring("-XX:ArchiveClassesAtExit=".length()));
+        assertTrue(pending.getFileName().toString().endsWith(".pending.jsa"));
+        return pending;
+    }
+}
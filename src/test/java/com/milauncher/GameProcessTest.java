@@ -0,0 +1,41 @@
+package com.milauncher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameProcessTest {
+
+    private static final String LINE = "ñandú ".repeat(20_000).strip();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void charactersSplitBetweenReadsAreDecodedWhole() throws IOException, URISyntaxException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classes = Paths.get(GameProcessTest.class.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+
+        GameProcess game = GameProcess.start(List.of(java, "-cp", classes, Printer.class.getName()), dir, dir.resolve("logs"));
+        GameProcess.Outcome outcome = game.awaitReady();
+
+        assertEquals(0, outcome.exitCode());
+        assertEquals(List.of("a".repeat(65_534), LINE, "fin sin salto"), outcome.tail());
+    }
+
+    // Las 'ñ' y 'ú' (dos bytes) de LINE caen sobre el borde de 64 KB del buffer de lectura
+    public static class Printer {
+        public static void main(String[] args) throws IOException {
+            System.out.write(("a".repeat(65_534) + "\n" + LINE + "\nfin sin salto").getBytes(StandardCharsets.UTF_8));
+            System.out.flush();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.milauncher;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlPackTest {
+
+    @TempDir
+    Path dir;
+
+    private Path source;
+
+    // Paquete chico con texto (bloque sólido), un jar (bloque sin comprimir) y una carpeta vacía
+    @BeforeEach
+    void createSource() throws IOException {
+        source = dir.resolve("source");
+        write("config/a.txt", "opcion=1\n".repeat(500).getBytes(StandardCharsets.UTF_8));
+        write("config/sub/b.json", "{\"clave\": \"valor\"}".getBytes(StandardCharsets.UTF_8));
+        write("config/vacio.txt", new byte[0]);
+        write("mods/x.jar", random(1, 150_000));
+        write("mods/y.jar", random(2, 20_000));
+        Files.createDirectories(source.resolve("saves"));
+    }
+
+    @Test
+    void roundTripsADirectory() throws IOException {
+        Path pack = dir.resolve("p" + GlPack.EXTENSION);
+        PackTool.convert(source, pack);
+        assertTrue(GlPack.isGlPack(pack));
+
+        try (GlPack glpack = GlPack.open(pack)) {
+            Map<String, byte[]> read = new TreeMap<>();
+            glpack.readAll((entry, content) -> {
+                if (!entry.isDirectory()) read.put(entry.path(), content.readAllBytes());
+            });
+            assertContent(read);
+
+            for (GlPack.Entry entry : glpack.entries()) {
+                if (entry.isDirectory()) continue;
+                assertEquals(Hashes.sha256(source.resolve(entry.path())), entry.sha256(), entry.path());
+                try (InputStream in = glpack.open(entry)) {
+                    assertArrayEquals(Files.readAllBytes(source.resolve(entry.path())), in.readAllBytes(), entry.path());
+                }
+            }
+        }
+
+        Path out = dir.resolve("out");
+        PackTool.extract(pack, out, List.of());
+        assertContent(readTree(out));
+        assertTrue(Files.isDirectory(out.resolve("saves")));
+    }
+
+    @Test
+    void roundTripsThroughZip() throws IOException {
+        Path pack = dir.resolve("p" + GlPack.EXTENSION);
+        Path zip = dir.resolve("p.zip");
+        Path again = dir.resolve("again" + GlPack.EXTENSION);
+        PackTool.convert(source, pack);
+        PackTool.convert(pack, zip);
+        PackTool.convert(zip, again);
+
+        Map<String, byte[]> zipped = new TreeMap<>();
+        try (ZipFile file = new ZipFile(zip.toFile())) {
+            for (var entry : Collections.list(file.entries())) {
+                if (entry.isDirectory()) continue;
+                try (InputStream in = file.getInputStream(entry)) {
+                    zipped.put(entry.getName(), in.readAllBytes());
+                }
+            }
+        }
+        assertContent(zipped);
+
+        Path out = dir.resolve("out");
+        PackTool.extract(again, out, List.of());
+        assertContent(readTree(out));
+    }
+
+    @Test
+    void extractsOnlyTheSelection() throws IOException {
+        Path pack = dir.resolve("p" + GlPack.EXTENSION);
+        Path zip = dir.resolve("p.zip");
+        PackTool.convert(source, pack);
+        PackTool.convert(pack, zip);
+
+        for (Path file : List.of(pack, zip)) {
+            Path out = dir.resolve("out-" + file.getFileName());
+            PackTool.extract(file, out, List.of("config/", "mods/y.jar"));
+            assertEquals(Set.of("config/a.txt", "config/sub/b.json", "config/vacio.txt", "mods/y.jar"),
+                    readTree(out).keySet(), file.getFileName().toString());
+        }
+    }
+
+    @Test
+    void detectsADamagedFile() throws IOException {
+        Path pack = dir.resolve("p" + GlPack.EXTENSION);
+        PackTool.convert(source, pack);
+
+        // El jar va sin comprimir: se busca su contenido en el paquete y se cambia un byte
+        byte[] data = Files.readAllBytes(pack);
+        byte[] jar = Files.readAllBytes(source.resolve("mods/x.jar"));
+        int at = indexOf(data, Arrays.copyOf(jar, 64));
+        assertTrue(at > 0);
+        data[at + 1000] ^= 1;
+        Files.write(pack, data);
+
+        IOException e = assertThrows(IOException.class, () -> PackTool.extract(pack, dir.resolve("out"), List.of()));
+        assertTrue(e.getMessage().contains("mods/x.jar"), e.getMessage());
+    }
+
+    @Test
+    void rejectsACorruptIndex() throws IOException {
+        // Un bloque de 100 bytes; cada entrada apunta fuera de él de una forma distinta
+        long[][] bad = {
+                {-2, 0, 10},    // bloque inválido
+                {1, 0, 10},     // bloque que no existe
+                {0, -1, 10},    // offset negativo
+                {0, 0, -1},     // tamaño negativo
+                {0, 101, 0},    // empieza después del bloque
+                {0, 90, 20},    // termina después del bloque
+                {0, 1, Long.MAX_VALUE},
+        };
+        for (long[] entry : bad) {
+            Path pack = index((int) entry[0], entry[1], entry[2]);
+            IOException e = assertThrows(IOException.class, () -> GlPack.open(pack).close(), Arrays.toString(entry));
+            assertTrue(e.getMessage().startsWith("Índice corrupto"), e.getMessage());
+        }
+        GlPack.open(index(0, 90, 10)).close();
+        GlPack.open(index(-1, 0, 0)).close();
+    }
+
+    // Paquete con un solo bloque STORED de 100 bytes y una entrada 'a'
+    private Path index(int block, long offset, long size) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write("GLPACK".getBytes(StandardCharsets.US_ASCII));
+        out.writeShort(2);
+        out.writeInt(1);
+        out.writeInt(1);
+        out.writeByte(GlPack.STORED);
+        out.writeLong(0);
+        out.writeLong(100);
+        out.writeLong(100);
+        out.writeUTF("a");
+        out.writeLong(size);
+        out.write(new byte[32]);
+        out.writeInt(block);
+        out.writeLong(offset);
+        out.write(new byte[100]);
+        return Files.write(dir.resolve("index" + GlPack.EXTENSION), bytes.toByteArray());
+    }
+
+    private void assertContent(Map<String, byte[]> actual) throws IOException {
+        Map<String, byte[]> expected = readTree(source);
+        assertEquals(expected.keySet(), actual.keySet());
+        for (String path : expected.keySet()) {
+            assertArrayEquals(expected.get(path), actual.get(path), path);
+        }
+    }
+
+    private static Map<String, byte[]> readTree(Path root) throws IOException {
+        Map<String, byte[]> files = new TreeMap<>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                if (Files.isRegularFile(path)) {
+                    files.put(root.relativize(path).toString().replace('\\', '/'), Files.readAllBytes(path));
+                }
+            }
+        }
+        return files;
+    }
+
+    private void write(String path, byte[] data) throws IOException {
+        Path file = source.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, data);
+    }
+
+    private static byte[] random(long seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + pattern.length, pattern, 0, pattern.length)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,54 @@
+package com.milauncher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JvmTuningTest {
+
+    @Test
+    void neverAsksForMoreThanTheMachineCanSpare() {
+        // 3 GB: se reservan 1536 MB, quedan 1536 para el juego (menos que el mínimo del modpack)
+        JvmTuning.Result result = JvmTuning.resolve(JvmTuning.Profile.AUTO, 4096, new JvmTuning.Hardware(4, 3072, 17));
+
+        assertEquals(1536, result.heapMb());
+        assertTrue(result.jvmArgs().contains("-Xmx1536M"), result.jvmArgs().toString());
+        assertTrue(result.warnings().stream().anyMatch(w -> w.contains("mínimo del modpack")), result.warnings().toString());
+    }
+
+    @Test
+    void clampsToTheAvailableMemory() {
+        // 8 GB: se reservan 2048 MB
+        JvmTuning.Result result = JvmTuning.resolve(JvmTuning.Profile.BALANCED, 8192, new JvmTuning.Hardware(8, 8192, 17));
+
+        assertEquals(6144, result.heapMb());
+        assertTrue(result.jvmArgs().contains("-Xms6144M"));
+        assertEquals(1, result.warnings().size());
+    }
+
+    @Test
+    void tinyMachinesGetTheFloor() {
+        JvmTuning.Result result = JvmTuning.resolve(JvmTuning.Profile.AUTO, 2048, new JvmTuning.Hardware(2, 1024, 17));
+
+        assertEquals(JvmTuning.FLOOR_HEAP_MB, result.heapMb());
+        assertEquals(JvmTuning.Profile.LOW_END, result.profile());
+    }
+
+    @Test
+    void keepsTheRequestWhenItFits() {
+        JvmTuning.Result result = JvmTuning.resolve(JvmTuning.Profile.AUTO, 6144, new JvmTuning.Hardware(8, 32768, 21));
+
+        assertEquals(6144, result.heapMb());
+        assertEquals(JvmTuning.Profile.HIGH_THROUGHPUT, result.profile());
+        assertTrue(result.jvmArgs().contains("-XX:+UseZGC"));
+        assertTrue(result.warnings().isEmpty(), result.warnings().toString());
+    }
+
+    @Test
+    void unknownRamKeepsTheRequest() {
+        JvmTuning.Result result = JvmTuning.resolve(JvmTuning.Profile.BALANCED, 4096, new JvmTuning.Hardware(4, -1, 17));
+
+        assertEquals(4096, result.heapMb());
+        assertTrue(result.warnings().isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.milauncher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackExtractorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void storeHitWithTheSameCrcButOtherContentIsExtracted() throws IOException {
+        byte[] installed = "contenido viejo".getBytes(StandardCharsets.UTF_8);
+        byte[] wanted = "contenido nuevo".getBytes(StandardCharsets.UTF_8);
+        BlobStore store = BlobStore.open(dir.resolve("store"));
+        // Se registra el blob viejo con el CRC del nuevo: lo mismo que una colisión de tamaño + CRC32
+        addBlob(store, installed, crc(wanted));
+
+        Path zip = zip(Map.of("libraries/x.jar", wanted));
+        PackManifest manifest = PackExtractor.extract(zip, dir.resolve("out"), null, "1", store, new ProgressReporter());
+
+        assertArrayEquals(wanted, Files.readAllBytes(dir.resolve("out/libraries/x.jar")));
+        assertEquals(Hashes.sha256(dir.resolve("out/libraries/x.jar")), manifest.get("libraries/x.jar").sha256);
+    }
+
+    @Test
+    void storeHitWithTheSameContentIsLinked() throws IOException {
+        byte[] content = "libreria compartida".getBytes(StandardCharsets.UTF_8);
+        BlobStore store = BlobStore.open(dir.resolve("store"));
+        String sha = addBlob(store, content, crc(content));
+
+        Path zip = zip(Map.of("libraries/x.jar", content));
+        PackManifest manifest = PackExtractor.extract(zip, dir.resolve("out"), null, "1", store, new ProgressReporter());
+
+        assertArrayEquals(content, Files.readAllBytes(dir.resolve("out/libraries/x.jar")));
+        assertEquals(sha, manifest.get("libraries/x.jar").sha256);
+    }
+
+    @Test
+    void sweepDeletesOnlyUnreferencedBlobs() throws IOException {
+        BlobStore store = BlobStore.open(dir.resolve("store"));
+        byte[] kept = "sigue en uso".getBytes(StandardCharsets.UTF_8);
+        byte[] unused = "ya nadie lo usa".getBytes(StandardCharsets.UTF_8);
+        String keptSha = addBlob(store, kept, crc(kept));
+        String unusedSha = addBlob(store, unused, crc(unused));
+
+        assertEquals(unused.length, store.sweep(Set.of(keptSha)));
+        assertEquals(keptSha, store.find(kept.length, crc(kept)));
+        assertNull(store.find(unused.length, crc(unused)));
+        assertTrue(store.contains(keptSha, kept.length));
+        assertFalse(store.contains(unusedSha, unused.length));
+        assertEquals(0, store.sweep(Set.of(keptSha)));
+    }
+
+    @Test
+    void dropsFilesTheNewVersionNoLongerShipsButKeepsProtectedOnes() throws IOException {
+        Path out = dir.resolve("out");
+        PackManifest v1 = PackExtractor.extract(zip(Map.of(
+                "mods/a.jar", bytes("a"),
+                "mods/b.jar", bytes("b"),
+                "options.txt", bytes("fov:70"))), out, null, "1", null, new ProgressReporter());
+        // El usuario cambia sus opciones después de instalar
+        Files.write(out.resolve("options.txt"), bytes("fov:90"));
+
+        PackManifest v2 = PackExtractor.extract(zip(Map.of(
+                "mods/a.jar", bytes("a"),
+                "mods/c.jar", bytes("c"))), out, v1, "2", null, new ProgressReporter());
+
+        assertFalse(Files.exists(out.resolve("mods/b.jar")));
+        assertArrayEquals(bytes("a"), Files.readAllBytes(out.resolve("mods/a.jar")));
+        assertArrayEquals(bytes("c"), Files.readAllBytes(out.resolve("mods/c.jar")));
+        assertArrayEquals(bytes("fov:90"), Files.readAllBytes(out.resolve("options.txt")));
+        assertNull(v2.get("mods/b.jar"));
+    }
+
+    @Test
+    void neverOverwritesAProtectedFile() throws IOException {
+        Path out = dir.resolve("out");
+        Files.createDirectories(out);
+        Files.write(out.resolve("servers.dat"), bytes("mis servidores"));
+
+        PackManifest manifest = PackExtractor.extract(zip(Map.of("servers.dat", bytes("los del pack"))),
+                out, null, "1", null, new ProgressReporter());
+
+        assertArrayEquals(bytes("mis servidores"), Files.readAllBytes(out.resolve("servers.dat")));
+        assertNull(manifest.get("servers.dat"));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String addBlob(BlobStore store, byte[] content, long crc) throws IOException {
+        Path tmp = store.newTempFile();
+        Files.write(tmp, content);
+        String sha = Hashes.sha256(tmp);
+        store.add(tmp, content.length, crc, sha);
+        return sha;
+    }
+
+    private Path zip(Map<String, byte[]> entries) throws IOException {
+        Path zip = Files.createTempFile(dir, "pack", ".zip");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(zip))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,66 @@
+package com.milauncher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackStagerTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void recoverFinishesASwapInterruptedBetweenDirectoryMoves() throws IOException {
+        Instance instance = Instance.defaultInstance();
+        Path game = instance.gameDir(root);
+        Path staging = game.resolve(PackStager.STAGING_DIR);
+        Path parked = game.resolve(PackStager.OLD_DIR).resolve("123");
+
+        // mods ya cambió; config se apartó pero la nueva no llegó a moverse; scripts no se tocó
+        write(game.resolve("mods/a.jar"), "mods 2");
+        write(parked.resolve("mods/a.jar"), "mods 1");
+        write(parked.resolve("config/forge.toml"), "config 1");
+        write(staging.resolve("config/forge.toml"), "config 2");
+        write(game.resolve("scripts/s.zs"), "scripts 1");
+        write(staging.resolve("scripts/s.zs"), "scripts 2");
+        write(game.resolve("icon.png"), "icono 1");
+        write(staging.resolve("icon.png"), "icono 2");
+        write(game.resolve("viejo.txt"), "ya no viene");
+        write(game.resolve("options.txt"), "fov:90");
+        write(game.resolve("pack_version.txt"), "1");
+        new PackManifest("2").save(PackManifest.pathIn(staging));
+        write(staging.resolve(".ready"), "2");
+        write(game.resolve(".swap.json"), """
+                { "packVersion": "2", "stamp": 123,
+                  "dirs": [ "mods", "config", "scripts" ], "files": [ "icon.png" ],
+                  "staleFiles": [ "viejo.txt", "options.txt" ] }
+                """);
+
+        PackStager.recover(root, instance);
+
+        assertEquals("mods 2", Files.readString(game.resolve("mods/a.jar")));
+        assertEquals("config 2", Files.readString(game.resolve("config/forge.toml")));
+        assertEquals("scripts 2", Files.readString(game.resolve("scripts/s.zs")));
+        assertEquals("icono 2", Files.readString(game.resolve("icon.png")));
+        assertFalse(Files.exists(game.resolve("viejo.txt")));
+        assertEquals("fov:90", Files.readString(game.resolve("options.txt")));
+        assertEquals("2", Files.readString(game.resolve("pack_version.txt")));
+        assertEquals("2", PackManifest.load(PackManifest.pathIn(game)).getPackVersion());
+        assertFalse(Files.exists(game.resolve(".swap.json")));
+        assertFalse(Files.exists(staging));
+
+        // Ya terminado, otra pasada no cambia nada
+        PackStager.recover(root, instance);
+        assertEquals("config 2", Files.readString(game.resolve("config/forge.toml")));
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,133 @@
+package com.milauncher;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedDownloaderTest {
+
+    // 4.5 MB: cuatro segmentos de al menos 1 MB
+    private static final int LENGTH = 4 * 1024 * 1024 + 512 * 1024;
+    private static final int SEGMENT = LENGTH / 4;
+
+    @TempDir
+    Path dir;
+
+    private FileServer server;
+    private byte[] content;
+    private String sha;
+    private Path target;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = new FileServer();
+        content = new byte[LENGTH];
+        new Random(7).nextBytes(content);
+        server.files.put("/pack.zip", content);
+        sha = Hashes.sha256(Files.write(dir.resolve("original.zip"), content));
+        target = dir.resolve("pack.zip");
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void downloadsInParallelSegments() throws IOException {
+        SegmentedDownloader.download(server.url("/pack.zip"), target, sha, new ProgressReporter());
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(ranges(0, 0, 0, 0), new TreeSet<>(server.requests));
+        assertFalse(Files.exists(part()));
+        assertFalse(Files.exists(state()));
+    }
+
+    @Test
+    void resumesFromThePartialFile() throws IOException {
+        // El primer segmento quedó completo, el segundo a medias y los otros dos sin empezar
+        long[] done = {SEGMENT, 1000, 0, 0};
+        writePartial(done, LENGTH, server.etag);
+
+        SegmentedDownloader.download(server.url("/pack.zip"), target, sha, new ProgressReporter());
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        Set<String> expected = ranges(done);
+        expected.remove("/pack.zip bytes=" + SEGMENT + "-" + (SEGMENT - 1));
+        assertEquals(expected, new TreeSet<>(server.requests));
+    }
+
+    @Test
+    void restartsWhenThePartFileWasTruncated() throws IOException {
+        writePartial(new long[]{SEGMENT, 1000, 0, 0}, SEGMENT / 2, server.etag);
+
+        SegmentedDownloader.download(server.url("/pack.zip"), target, sha, new ProgressReporter());
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(ranges(0, 0, 0, 0), new TreeSet<>(server.requests));
+    }
+
+    @Test
+    void restartsWhenTheRemoteFileChanged() throws IOException {
+        writePartial(new long[]{SEGMENT, 1000, 0, 0}, LENGTH, "\"v0\"");
+
+        SegmentedDownloader.download(server.url("/pack.zip"), target, sha, new ProgressReporter());
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(ranges(0, 0, 0, 0), new TreeSet<>(server.requests));
+    }
+
+    // Lo que deja una descarga cortada: el ".part" con lo bajado de cada segmento y su ".part.json"
+    private void writePartial(long[] done, int partLength, String validator) throws IOException {
+        byte[] partial = new byte[LENGTH];
+        JsonArray segments = new JsonArray();
+        for (int i = 0; i < done.length; i++) {
+            long start = (long) i * SEGMENT;
+            System.arraycopy(content, (int) start, partial, (int) start, (int) done[i]);
+            JsonObject segment = new JsonObject();
+            segment.addProperty("start", start);
+            segment.addProperty("end", end(i));
+            segment.addProperty("done", done[i]);
+            segments.add(segment);
+        }
+        Files.write(part(), Arrays.copyOf(partial, partLength));
+
+        JsonObject state = new JsonObject();
+        state.addProperty("url", server.url("/pack.zip"));
+        state.addProperty("length", LENGTH);
+        state.addProperty("validator", validator);
+        state.add("segments", segments);
+        Files.writeString(state(), state.toString());
+    }
+
+    // Rangos que se piden por segmento, dado lo que ya tenía cada uno
+    private static Set<String> ranges(long... done) {
+        Set<String> ranges = new TreeSet<>();
+        for (int i = 0; i < done.length; i++) {
+            ranges.add("/pack.zip bytes=" + ((long) i * SEGMENT + done[i]) + "-" + end(i));
+        }
+        return ranges;
+    }
+
+    private static long end(int segment) {
+        return segment == 3 ? LENGTH - 1 : (long) (segment + 1) * SEGMENT - 1;
+    }
+
+    private Path part() {
+        return dir.resolve("pack.zip.part");
+    }
+
+    private Path state() {
+        return dir.resolve("pack.zip.part.json");
+    }
+}
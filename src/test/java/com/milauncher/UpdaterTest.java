@@ -0,0 +1,176 @@
+package com.milauncher;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// fetchUpdate contra un servidor HTTP local que sirve el instalador completo y el parche del jar
+class UpdaterTest {
+
+    private static final String NEW_VERSION = "9.9.9";
+    private static final String CHANGED_CLASS = "com/google/gson/Gson.class";
+
+    @TempDir
+    Path dir;
+
+    private FileServer server;
+
+    private Path installedJar;
+    private Path newJar;
+    private byte[] installer;
+    private Path updates;
+    private Path installerOut;
+
+    @BeforeEach
+    void start() throws IOException, URISyntaxException {
+        server = new FileServer();
+
+        // Dos versiones de un jar real (el de Gson) que difieren en una sola clase
+        Map<String, byte[]> classes = readJar(Paths.get(Gson.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        installedJar = writeJar(dir.resolve("install/GLauncher.jar"), classes);
+        byte[] changed = classes.get(CHANGED_CLASS).clone();
+        changed[changed.length / 2] ^= 1;
+        changed[changed.length / 3] ^= 1;
+        classes.put(CHANGED_CLASS, changed);
+        newJar = writeJar(dir.resolve("new/GLauncher.jar"), classes);
+
+        Path patch = dir.resolve("p.gldiff");
+        DeltaPatch.create(installedJar, newJar, patch);
+        installer = new byte[300_000];
+        new Random(1).nextBytes(installer);
+        server.files.put("/setup.exe", installer);
+        Files.write(dir.resolve("setup.exe"), installer);
+        server.files.put("/p.gldiff", Files.readAllBytes(patch));
+
+        updates = dir.resolve("updates");
+        installerOut = dir.resolve("GLauncher_Setup_New.exe");
+    }
+
+    @AfterEach
+    void stop() {
+        server.close();
+    }
+
+    @Test
+    void patchBetweenJarsWithOneChangedClassIsSmall() throws IOException {
+        long patch = server.files.get("/p.gldiff").length;
+        long jar = Files.size(newJar);
+        // Solo viaja la clase que cambió y las entradas del directorio central cuyo offset se corrió
+        assertTrue(patch < jar / 20, "parche de " + patch + " bytes para un jar de " + jar);
+    }
+
+    @Test
+    void buildsTheJarFromThePatch() throws IOException {
+        Updater.Update update = Updater.fetchUpdate(release(), installedJar, updates, installerOut, new ProgressReporter());
+
+        assertTrue(update.patchedJar());
+        assertArrayEquals(Files.readAllBytes(newJar), Files.readAllBytes(update.file()));
+        assertEquals(List.of("/p.gldiff"), downloaded());
+        // El instalado no se toca: lo reemplaza JarSwap cuando el launcher cierra
+        assertNotEquals(Hashes.sha256(newJar), Hashes.sha256(installedJar));
+        try (var leftovers = Files.list(updates)) {
+            assertEquals(List.of(update.file()), leftovers.toList());
+        }
+    }
+
+    @Test
+    void downloadsTheInstallerWhenNotRunningFromAJar() throws IOException {
+        Updater.Update update = Updater.fetchUpdate(release(), null, updates, installerOut, new ProgressReporter());
+
+        assertFalse(update.patchedJar());
+        assertArrayEquals(installer, Files.readAllBytes(update.file()));
+        assertEquals(List.of("/setup.exe"), downloaded());
+    }
+
+    @Test
+    void fallsBackWhenTheInstalledJarDiffers() throws IOException {
+        byte[] other = Files.readAllBytes(installedJar);
+        other[10] ^= 1;
+        Files.write(installedJar, other);
+
+        Updater.Update update = Updater.fetchUpdate(release(), installedJar, updates, installerOut, new ProgressReporter());
+
+        assertFalse(update.patchedJar());
+        assertArrayEquals(installer, Files.readAllBytes(update.file()));
+        assertEquals(List.of("/p.gldiff", "/setup.exe"), downloaded());
+        assertFalse(Files.exists(updates.resolve("GLauncher-" + NEW_VERSION + ".jar")));
+    }
+
+    @Test
+    void fallsBackWhenThePatchIsCorrupt() throws IOException {
+        byte[] patch = server.files.get("/p.gldiff").clone();
+        patch[patch.length - 10] ^= 0x55;
+        server.files.put("/p.gldiff", patch);
+
+        // El hash publicado del parche es el del bueno: falla la descarga y se baja el completo
+        Updater.Update update = Updater.fetchUpdate(release(), installedJar, updates, installerOut, new ProgressReporter());
+
+        assertFalse(update.patchedJar());
+        assertEquals(List.of("/p.gldiff", "/setup.exe"), downloaded());
+    }
+
+    @Test
+    void readsThePatchForTheCurrentVersion() {
+        JsonObject json = new Gson().fromJson("""
+                { "latest_version": "9.9.9", "download_url": "u", "sha256": "a",
+                  "patches": [ { "from": "0.0.1", "url": "otro" },
+                               { "from": "%s", "url": "p", "sha256": "b", "jar_sha256": "c" } ] }
+                """.formatted(Updater.CURRENT_VERSION), JsonObject.class);
+
+        assertEquals(new Updater.Release("9.9.9", "u", "a", "p", "b", "c"), Updater.readRelease(json));
+    }
+
+    private Updater.Release release() throws IOException {
+        return new Updater.Release(NEW_VERSION, server.url("/setup.exe"), Hashes.sha256(dir.resolve("setup.exe")),
+                server.url("/p.gldiff"), Hashes.sha256(dir.resolve("p.gldiff")), Hashes.sha256(newJar));
+    }
+
+    // Archivos pedidos, sin el rango (los dos son menores que un segmento: un GET cada uno)
+    private List<String> downloaded() {
+        return server.requests.stream().map(request -> request.split(" ")[0]).toList();
+    }
+
+    private static Map<String, byte[]> readJar(Path jar) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (JarFile file = new JarFile(jar.toFile())) {
+            for (JarEntry entry : Collections.list(file.entries())) {
+                if (entry.isDirectory()) continue;
+                try (InputStream in = file.getInputStream(entry)) {
+                    entries.put(entry.getName(), in.readAllBytes());
+                }
+            }
+        }
+        return entries;
+    }
+
+    // Mismo orden, fecha y compresión en las dos versiones, como las arma el shade
+    private static Path writeJar(Path jar, Map<String, byte[]> entries) throws IOException {
+        Files.createDirectories(jar.getParent());
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                JarEntry jarEntry = new JarEntry(entry.getKey());
+                jarEntry.setTime(0);
+                out.putNextEntry(jarEntry);
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+}